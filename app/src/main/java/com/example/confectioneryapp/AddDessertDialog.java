@@ -2,6 +2,10 @@ package com.example.confectioneryapp; // Переконайтесь, що наз
 
 import android.app.AlertDialog;
 import android.content.Context;
+import android.os.Handler;  // Щоб відкласти перевірку і повернути її результат у головний потік
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher; // Стежить за тим, що користувач вводить
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.Button;
@@ -10,6 +14,10 @@ import android.widget.ArrayAdapter;
 import android.widget.Toast; // Для показу повідомлень користувачу (наприклад, про помилки)
 
 import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Цей клас відповідає за показ діалогового вікна,
@@ -17,12 +25,19 @@ import com.google.android.material.textfield.TextInputEditText;
  */
 public class AddDessertDialog {
 
+    // Скільки чекаємо після останнього натискання клавіші, перш ніж шукати дублікат
+    private static final long DUPLICATE_CHECK_DELAY_MS = 300;
+
     /**
      * Інтерфейс (як контракт), щоб повідомити MainActivity (або хто викликав діалог),
      * коли десерт успішно додано або оновлено.
      */
     public interface AddDessertCallback {
-        void onDessertAdded(DessertEntity dessert); // Метод тепер приймає DessertEntity
+        /**
+         * @param dessert Десерт для збереження.
+         * @param result Куди повідомити, чи вдалося зберегти (діалог чекає на відповідь, перш ніж закритися).
+         */
+        void onDessertAdded(DessertEntity dessert, DessertViewModel.SaveCallback result);
     }
 
     /**
@@ -68,6 +83,14 @@ public class AddDessertDialog {
             }
         }
 
+        // Поки користувач вводить назву і тип, у фоні перевіряємо, чи немає вже такого десерту
+        TextInputLayout layoutName = dialogView.findViewById(R.id.layoutDessertName);
+        DuplicateWatcher duplicateWatcher = new DuplicateWatcher(
+                AppDatabase.getInstance(context).dessertDao(), editName, editType, layoutName,
+                isEditing ? dessertToEdit.getId() : 0);
+        editName.addTextChangedListener(duplicateWatcher);
+        editType.addTextChangedListener(duplicateWatcher);
+
         // Тепер створюємо сам діалог
         AlertDialog dialog = new AlertDialog.Builder(context)
                 .setTitle(dialogTitle)
@@ -77,6 +100,8 @@ public class AddDessertDialog {
                 .create();
 
         // Цей код виконається, коли діалог вже готовий показатися.
+        dialog.setOnDismissListener(dialogInterface -> duplicateWatcher.stop()); // Прибираємо фоновий потік
+
         dialog.setOnShowListener(dialogInterface -> {
             Button positiveButton = dialog.getButton(AlertDialog.BUTTON_POSITIVE);
             positiveButton.setOnClickListener(view -> {
@@ -96,11 +121,11 @@ public class AddDessertDialog {
                     double price = Double.parseDouble(priceStr);
                     int weight = Integer.parseInt(weightStr);
 
-                    DessertEntity dessertToSave;
+                    // Завжди новий об'єкт: якщо зберегти не вдасться, десерт у списку лишиться незмінним.
+                    // Поля синхронізації (syncId, version) не копіюємо - їх веде лише SyncWorker.
+                    DessertEntity dessertToSave = new DessertEntity();
                     if (isEditing) {
-                        dessertToSave = dessertToEdit;
-                    } else {
-                        dessertToSave = new DessertEntity();
+                        dessertToSave.setId(dessertToEdit.getId());
                     }
 
                     dessertToSave.setName(nameStr);
@@ -110,15 +135,24 @@ public class AddDessertDialog {
                     dessertToSave.setDescription(descriptionStr);
                     dessertToSave.setStatus(selectedStatus);
 
-                    callback.onDessertAdded(dessertToSave);
-                    dialog.dismiss();
-
-                    // ДОДАНО: Повідомлення про успішне оновлення/додавання
-                    if (isEditing) {
-                        Toast.makeText(context, "Десерт оновлено успішно!", Toast.LENGTH_SHORT).show();
-                    } else {
-                        Toast.makeText(context, "Десерт додано успішно!", Toast.LENGTH_SHORT).show();
-                    }
+                    // Остаточна перевірка на дублікат робиться у фоні разом із записом,
+                    // тому кнопку вимикаємо, доки не прийде відповідь
+                    positiveButton.setEnabled(false);
+                    callback.onDessertAdded(dessertToSave, new DessertViewModel.SaveCallback() {
+                        @Override
+                        public void onSaved() {
+                            dialog.dismiss();
+                            Toast.makeText(context, isEditing ? "Десерт оновлено успішно!" : "Десерт додано успішно!",
+                                    Toast.LENGTH_SHORT).show();
+                        }
+
+                        @Override
+                        public void onDuplicate(DessertEntity existing) {
+                            positiveButton.setEnabled(true);
+                            layoutName.setError("Вже є: " + existing.getName() + " (" + existing.getType() + ")");
+                            Toast.makeText(context, "Десерт з такою назвою і типом вже є!", Toast.LENGTH_LONG).show();
+                        }
+                    });
 
                 } catch (NumberFormatException e) {
                     Toast.makeText(context, "Будь ласка, введіть правильні числа для ціни та ваги.", Toast.LENGTH_LONG).show();
@@ -130,4 +164,87 @@ public class AddDessertDialog {
 
         dialog.show();
     }
+
+    /**
+     * Перевіряє "на льоту", чи є вже в базі десерт з такою назвою і типом.
+     * Запит робимо не на кожну літеру, а через DUPLICATE_CHECK_DELAY_MS після того,
+     * як користувач перестав друкувати, і завжди у фоновому потоці - UI не гальмує.
+     * Якщо дублікат знайдено, під полем назви з'являється попередження.
+     * Це лише підказка: остаточне рішення приймається при збереженні (DessertViewModel.insert/update).
+     */
+    private static class DuplicateWatcher implements TextWatcher, Runnable {
+
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+        private final ExecutorService lookupExecutor = Executors.newSingleThreadExecutor();
+        private final DessertDao dessertDao;
+        private final TextInputEditText editName;
+        private final TextInputEditText editType;
+        private final TextInputLayout layoutName;
+        private final int editingId; // id десерту, який редагуємо (він сам собі не дублікат), або 0
+
+        // Номер останньої перевірки: відповіді на старіші перевірки просто ігноруємо.
+        // Читаємо і змінюємо лише в головному потоці.
+        private int lastRequest;
+
+        DuplicateWatcher(DessertDao dessertDao, TextInputEditText editName, TextInputEditText editType,
+                         TextInputLayout layoutName, int editingId) {
+            this.dessertDao = dessertDao;
+            this.editName = editName;
+            this.editType = editType;
+            this.layoutName = layoutName;
+            this.editingId = editingId;
+        }
+
+        @Override
+        public void afterTextChanged(Editable editable) {
+            // Кожне нове натискання "переносить" перевірку на пізніше
+            mainHandler.removeCallbacks(this);
+            mainHandler.postDelayed(this, DUPLICATE_CHECK_DELAY_MS);
+        }
+
+        @Override
+        public void beforeTextChanged(CharSequence text, int start, int count, int after) {
+        }
+
+        @Override
+        public void onTextChanged(CharSequence text, int start, int before, int count) {
+        }
+
+        /**
+         * Сама перевірка (запускається в головному потоці після паузи у введенні).
+         */
+        @Override
+        public void run() {
+            int request = ++lastRequest;
+            String name = DessertEntity.normalize(String.valueOf(editName.getText()));
+            String type = DessertEntity.normalize(String.valueOf(editType.getText()));
+            if (name.isEmpty() || type.isEmpty()) {
+                showResult(request, null);
+                return;
+            }
+            lookupExecutor.execute(() -> {
+                DessertEntity found = dessertDao.findByNormalizedNameAndType(name, type);
+                mainHandler.post(() -> showResult(request, found));
+            });
+        }
+
+        private void showResult(int request, DessertEntity found) {
+            if (request != lastRequest) {
+                return; // Поки ми шукали, користувач вже ввів щось інше
+            }
+            boolean duplicateFound = found != null && found.getId() != editingId;
+            layoutName.setError(duplicateFound
+                    ? "Вже є: " + found.getName() + " (" + found.getType() + ")"
+                    : null);
+        }
+
+        /**
+         * Зупиняє перевірки, коли діалог закрито.
+         */
+        void stop() {
+            mainHandler.removeCallbacks(this);
+            lastRequest++; // Відповідь, яка ще "в дорозі", більше нічого не покаже
+            lookupExecutor.shutdown();
+        }
+    }
 }
\ No newline at end of file
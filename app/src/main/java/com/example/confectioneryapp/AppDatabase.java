@@ -1,26 +1,197 @@
 package com.example.confectioneryapp;
 
 import android.content.Context;
+import android.database.Cursor;                   // Результат "сирого" SQL-запиту
+import android.database.sqlite.SQLiteDatabase;    // Звичайна (не Room) база для запитів по кількох магазинах
 
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.room.Database;   // Головна "мітка" для класу, що це база даних
 import androidx.room.Room;        // Інструмент для побудови нашої бази даних
 import androidx.room.RoomDatabase; // Базовий клас, від якого ми будуємо свою базу
+import androidx.room.migration.Migration; // Опис переходу бази зі старої версії на нову
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Це "серце" нашої бази даних.
  * Тут ми кажемо, які таблички (сутності) у нас будуть і яка версія бази.
- * Він один на весь додаток (Singleton).
+ * Кожен магазин (точка продажу) має свій окремий файл бази: "<назва магазину>.db".
+ * Відкритими одночасно тримаємо лише кілька останніх магазинів, інші закриваємо
+ * (окрім поточного і тих, з якими саме працює фонова задача).
  */
 // @Database - головна анотація.
-// entities - тут перераховуємо всі наші класи-таблички. У нас одна - DessertEntity.
-// version - номер версії. Дуже важливо його змінювати, якщо ми міняємо структуру таблиць.
+// entities - тут перераховуємо всі наші класи-таблички: десерти, інгредієнти та рецепти (зв'язок між ними).
+// version - номер версії. Дуже важливо його змінювати, якщо ми міняємо структуру таблиць,
+// і разом з ним додавати Migration до MIGRATIONS - інакше оновлення зітре дані користувача.
 // exportSchema = false - не експортувати схему бази в окремий файл (для простоти).
-@Database(entities = {DessertEntity.class}, version = 2, exportSchema = false) // Змінили версію на 2!
+@Database(entities = {DessertEntity.class, IngredientEntity.class, DessertIngredientCrossRef.class},
+        version = AppDatabase.VERSION, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
 
-    // Тут буде жити єдиний екземпляр нашої бази даних.
+    // Версія 6: "надгробки" видалених десертів для синхронізації
+    static final int VERSION = 6;
+
+    /**
+     * Версія 2 -> 3: таблиці інгредієнтів і рецептів. Десерти не змінюються.
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `ingredients` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`name` TEXT NOT NULL, `unit` TEXT NOT NULL, `pricePerUnit` REAL NOT NULL, `allergen` TEXT)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_ingredients_name` ON `ingredients` (`name`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `dessert_ingredients` (`dessertId` INTEGER NOT NULL, "
+                    + "`ingredientId` INTEGER NOT NULL, `quantity` REAL NOT NULL, "
+                    + "PRIMARY KEY(`dessertId`, `ingredientId`), "
+                    + "FOREIGN KEY(`dessertId`) REFERENCES `desserts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`ingredientId`) REFERENCES `ingredients`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_dessert_ingredients_ingredientId` "
+                    + "ON `dessert_ingredients` (`ingredientId`)");
+        }
+    };
+
+    /**
+     * Версія 3 -> 4: поля для синхронізації. Усі наявні десерти сервер ще не бачив,
+     * тому позначаємо їх "брудними" - перша ж синхронізація їх відправить.
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `desserts` ADD COLUMN `syncId` TEXT");
+            db.execSQL("ALTER TABLE `desserts` ADD COLUMN `version` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `desserts` ADD COLUMN `updatedAt` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `desserts` ADD COLUMN `dirty` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE `desserts` SET `dirty` = 1");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_desserts_syncId` ON `desserts` (`syncId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_desserts_dirty` ON `desserts` (`dirty`)");
+        }
+    };
+
+    /**
+     * Версія 4 -> 5: нормалізовані назва і тип та унікальний індекс на них.
+     * Нормалізуємо в Java (DessertEntity.normalize), бо SQL lower() не знає кирилиці.
+     * Перед створенням індексу прибираємо дублікати: лишаємо десерт, який уже бачив сервер
+     * (має syncId), а серед рівних - найновіший (з найбільшим id).
+     * Рецепт дубліката переносимо на десерт, що лишається (інгредієнти, які там уже є, не дублюємо).
+     * Дублікат без syncId видаляємо - сервер про нього не знає. Дублікат з syncId не видаляємо мовчки:
+     * звільняємо його назву і лишаємо "брудним", а MIGRATION_5_6 зробить з нього надгробок,
+     * щоб видалення дійшло і до сервера.
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `desserts` ADD COLUMN `normalizedName` TEXT NOT NULL DEFAULT ''");
+            db.execSQL("ALTER TABLE `desserts` ADD COLUMN `normalizedType` TEXT NOT NULL DEFAULT ''");
+
+            Map<String, long[]> keepers = new HashMap<>(); // ключ -> {id, чи має syncId}
+            List<long[]> duplicates = new ArrayList<>();   // {id, чи має syncId}
+            List<String> duplicateKeys = new ArrayList<>(); // ключ кожного дубліката - щоб знайти, хто лишився
+            try (Cursor cursor = db.query("SELECT id, name, type, syncId IS NOT NULL FROM desserts ORDER BY id")) {
+                while (cursor.moveToNext()) {
+                    long id = cursor.getLong(0);
+                    String normalizedName = DessertEntity.normalize(cursor.getString(1));
+                    String normalizedType = DessertEntity.normalize(cursor.getString(2));
+                    long synced = cursor.getLong(3);
+                    db.execSQL("UPDATE desserts SET normalizedName = ?, normalizedType = ? WHERE id = ?",
+                            new Object[]{normalizedName, normalizedType, id});
+
+                    // Рядки йдуть за зростанням id, тож новіший перемагає, якщо не програє за syncId
+                    String key = normalizedName + '\n' + normalizedType;
+                    long[] candidate = {id, synced};
+                    long[] kept = keepers.put(key, candidate);
+                    if (kept != null && kept[1] > synced) {
+                        keepers.put(key, kept);
+                        duplicates.add(candidate);
+                        duplicateKeys.add(key);
+                    } else if (kept != null) {
+                        duplicates.add(kept);
+                        duplicateKeys.add(key);
+                    }
+                }
+            }
+            for (int i = 0; i < duplicates.size(); i++) {
+                long[] duplicate = duplicates.get(i);
+                long keeper = keepers.get(duplicateKeys.get(i))[0];
+                // Рецепти переносимо самі: під час міграції зовнішні ключі можуть бути вимкнені.
+                // OR IGNORE пропускає інгредієнти, які вже є в рецепті keeper, - їх далі просто видаляємо
+                db.execSQL("UPDATE OR IGNORE dessert_ingredients SET dessertId = ? WHERE dessertId = ?",
+                        new Object[]{keeper, duplicate[0]});
+                db.execSQL("DELETE FROM dessert_ingredients WHERE dessertId = ?", new Object[]{duplicate[0]});
+                if (duplicate[1] == 1) {
+                    db.execSQL("UPDATE desserts SET normalizedName = ? || syncId, normalizedType = '', dirty = 1 "
+                            + "WHERE id = ?", new Object[]{DessertEntity.TOMBSTONE_PREFIX, duplicate[0]});
+                    continue;
+                }
+                db.execSQL("DELETE FROM desserts WHERE id = ?", new Object[]{duplicate[0]});
+            }
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_desserts_normalizedName_normalizedType` "
+                    + "ON `desserts` (`normalizedName`, `normalizedType`)");
+        }
+    };
+
+    /**
+     * Версія 5 -> 6: позначка "видалено" для синхронізації видалень.
+     * Дублікати з syncId, яким MIGRATION_4_5 звільнила назву, стають надгробками.
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `desserts` ADD COLUMN `deleted` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE desserts SET deleted = 1, dirty = 1 WHERE substr(normalizedName, 1, ?) = ?",
+                    new Object[]{DessertEntity.TOMBSTONE_PREFIX.length(), DessertEntity.TOMBSTONE_PREFIX});
+        }
+    };
+
+    // Усі переходи між версіями, які Room може виконати без втрати даних.
+    // Ланцюжок має йти без пропусків від версії 2 до VERSION (це перевіряє MigrationTest).
+    static final Migration[] MIGRATIONS = {MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6};
+
+    /**
+     * Магазин за замовчуванням. Його файл - "confectionery.db", тобто та сама база,
+     * що була в додатку до появи кількох магазинів, тому старі дані нікуди не зникають.
+     */
+    public static final String DEFAULT_STORE = "confectionery";
+
+    // Скільки баз магазинів можна тримати відкритими одночасно.
+    // Перемикання між ними миттєве, а решта закривається, щоб не тримати зайві файли та пам'ять.
+    static final int MAX_OPEN_STORES = 3;
+
+    // SQLite дозволяє приєднати (ATTACH) не більше 10 баз до одного з'єднання.
+    private static final int MAX_ATTACHED = 10;
+
+    private static final String DB_SUFFIX = ".db";
+
+    // Бази магазинів, з якими працював екран, у порядку "від найдавніше використаної до останньої".
+    // Порядок змінюємо самі (remove + put) лише у getInstance(), щоб фонові задачі його не збивали.
+    // Екземпляр лежить тут, доки ми самі його не закриємо: перевіряти isOpen() не можна -
+    // Room повертає false, доки не виконано перший запит.
+    // Доступ до всіх трьох колекцій - лише під synchronized (AppDatabase.class).
+    private static final LinkedHashMap<String, AppDatabase> OPEN_STORES = new LinkedHashMap<>();
+
+    // Бази, які відкрила фонова задача (acquire) і яких немає в OPEN_STORES.
+    // Закриваються одразу, щойно задача їх відпустить (release).
+    private static final Map<String, AppDatabase> BACKGROUND_STORES = new HashMap<>();
+
+    // Скільки "користувачів" зараз тримає кожну базу (acquire/release).
+    // Базу з ненульовим лічильником не закриваємо ніколи.
+    private static final Map<String, Integer> PINS = new HashMap<>();
+
+    // Магазин, з яким зараз працює користувач.
     // volatile - щоб зміни були одразу видні всім потокам.
-    private static volatile AppDatabase INSTANCE;
+    private static volatile String currentStore = DEFAULT_STORE;
+
+    // Де запам'ятовуємо вибраний магазин, щоб він пережив перезапуск процесу
+    private static final String STORE_PREFS = "stores";
+    private static final String KEY_CURRENT_STORE = "current";
 
     /**
      * Цей метод дасть нам інструмент (DAO) для роботи з табличкою десертів.
@@ -30,26 +201,326 @@ public abstract class AppDatabase extends RoomDatabase {
     public abstract DessertDao dessertDao();
 
     /**
-     * Головний спосіб отримати доступ до нашої бази даних.
-     * Він створює базу, якщо її ще немає, або повертає вже існуючу.
+     * Інструмент (DAO) для роботи з інгредієнтами та рецептами десертів.
+     * @return об'єкт IngredientDao для таблиць "ingredients" та "dessert_ingredients".
+     */
+    public abstract IngredientDao ingredientDao();
+
+    /**
+     * Головний спосіб отримати доступ до бази даних поточного магазину.
      * @param context Потрібен, щоб знати, де створити файл бази даних.
-     * @return Єдиний екземпляр AppDatabase.
+     * @return База даних магазину, який зараз вибраний.
      */
     public static AppDatabase getInstance(Context context) {
-        if (INSTANCE == null) { // Якщо базу ще ніхто не просив
-            synchronized (AppDatabase.class) { // Захист, щоб кілька частин програми одночасно не спробували створити базу
-                if (INSTANCE == null) { // Ще раз перевіряємо, може, хтось вже створив, поки ми чекали
-                    // Створюємо базу!
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(), // Беремо загальний контекст додатка
-                                    AppDatabase.class, // Наш клас бази даних
-                                    "confectionery.db") // Назва файлу, де буде зберігатися база. Тепер для кондитерської!
-                            // Якщо ми оновили версію бази, а Room не знає, як перенести старі дані в нову структуру,
-                            // він просто видалить стару базу і створить нову.
-                            .fallbackToDestructiveMigration()
-                            .build(); // Будуємо!
+        return getInstance(context, currentStore);
+    }
+
+    /**
+     * Повертає базу конкретного магазину для екрану і робить її "останньою використаною".
+     * Якщо відкритих баз забагато, закриваємо найдавніше використану - але ніколи
+     * не поточний магазин і не ту базу, з якою хтось зараз працює (див. acquire()).
+     * @param context Потрібен, щоб знати, де створити файл бази даних.
+     * @param storeName Назва магазину (вона ж назва файлу без ".db").
+     * @return База даних цього магазину.
+     */
+    public static AppDatabase getInstance(Context context, String storeName) {
+        checkStoreName(storeName);
+        synchronized (AppDatabase.class) { // Захист, щоб кілька потоків не відкрили одну базу двічі
+            AppDatabase db = OPEN_STORES.remove(storeName);
+            if (db == null) {
+                db = BACKGROUND_STORES.remove(storeName); // Фонова задача вже відкрила - беремо її екземпляр
+            }
+            if (db == null) {
+                db = build(context, storeName);
+            }
+            OPEN_STORES.put(storeName, db); // В кінець - тепер вона "остання використана"
+            evictIdleStores();
+            return db;
+        }
+    }
+
+    /**
+     * Бере базу магазину для фонової роботи (наприклад, синхронізації) і "закріплює" її:
+     * поки не викликано release(), базу не закриє ні LRU, ні нестача пам'яті.
+     * Порядок LRU при цьому не змінюється - фонова задача не "витісняє" магазини користувача.
+     * Кожен acquire() обов'язково має свій release() (у finally).
+     * @param context Контекст додатка.
+     * @param storeName Назва магазину.
+     * @return База даних цього магазину.
+     */
+    public static AppDatabase acquire(Context context, String storeName) {
+        checkStoreName(storeName);
+        synchronized (AppDatabase.class) {
+            AppDatabase db = OPEN_STORES.get(storeName); // Звичайна LinkedHashMap: get() порядок не змінює
+            if (db == null) {
+                db = BACKGROUND_STORES.get(storeName);
+            }
+            if (db == null) {
+                db = build(context, storeName);
+                BACKGROUND_STORES.put(storeName, db);
+            }
+            Integer pins = PINS.get(storeName);
+            PINS.put(storeName, pins == null ? 1 : pins + 1);
+            return db;
+        }
+    }
+
+    /**
+     * Відпускає базу, взяту через acquire(). Якщо її більше ніхто не тримає:
+     * базу, відкриту лише для фонової роботи, закриваємо одразу,
+     * а решту знову можна закривати за правилами LRU.
+     * @param storeName Назва магазину.
+     */
+    public static void release(String storeName) {
+        synchronized (AppDatabase.class) {
+            Integer pins = PINS.get(storeName);
+            if (pins == null) {
+                throw new IllegalStateException("release() без acquire() для магазину " + storeName);
+            }
+            if (pins > 1) {
+                PINS.put(storeName, pins - 1);
+                return;
+            }
+            PINS.remove(storeName);
+            AppDatabase background = BACKGROUND_STORES.remove(storeName);
+            if (background != null) {
+                background.close();
+            }
+            evictIdleStores();
+        }
+    }
+
+    /**
+     * Перемикає додаток на інший магазин. Екземпляр бази створюється одразу,
+     * а сам файл Room відкриє при першому запиті (вже не в головному потоці).
+     * @param storeName Назва магазину.
+     */
+    public static void switchStore(Context context, String storeName) {
+        synchronized (AppDatabase.class) {
+            getInstance(context, storeName);
+            currentStore = storeName;
+            evictIdleStores(); // Попередній магазин тепер теж можна закривати за правилами LRU
+        }
+        context.getSharedPreferences(STORE_PREFS, Context.MODE_PRIVATE).edit()
+                .putString(KEY_CURRENT_STORE, storeName)
+                .apply();
+    }
+
+    /**
+     * Повертає магазин, вибраний до перезапуску процесу (викликається з ConfectioneryApp).
+     * Базу не відкриває - лише запам'ятовує назву.
+     */
+    static void restoreCurrentStore(Context context) {
+        String saved = context.getSharedPreferences(STORE_PREFS, Context.MODE_PRIVATE)
+                .getString(KEY_CURRENT_STORE, DEFAULT_STORE);
+        try {
+            checkStoreName(saved);
+            currentStore = saved;
+        } catch (IllegalArgumentException e) {
+            currentStore = DEFAULT_STORE; // Зіпсоване значення - краще магазин за замовчуванням, ніж падіння
+        }
+    }
+
+    /**
+     * @return Назва магазину, з яким зараз працює додаток.
+     */
+    public static String getCurrentStore() {
+        return currentStore;
+    }
+
+    /**
+     * Скільки баз магазинів зараз відкрито. Без закріплених (acquire) баз -
+     * не більше MAX_OPEN_STORES; закріплені можуть тимчасово додаватися зверху.
+     */
+    public static int getOpenStoreCount() {
+        synchronized (AppDatabase.class) {
+            return OPEN_STORES.size() + BACKGROUND_STORES.size();
+        }
+    }
+
+    /**
+     * Закриває бази всіх магазинів, крім поточного і тих, з якими зараз працюють.
+     * Корисно, коли додаток іде у фон або системі бракує пам'яті.
+     */
+    public static void closeIdleStores() {
+        synchronized (AppDatabase.class) {
+            Iterator<Map.Entry<String, AppDatabase>> it = OPEN_STORES.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, AppDatabase> entry = it.next();
+                if (isIdle(entry.getKey())) {
+                    entry.getValue().close();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Закриває всі бази і повертає магазин за замовчуванням.
+     * Лише для тестів - щоб кожен тест починав з чистого стану.
+     */
+    @VisibleForTesting
+    static void closeAllStores() {
+        synchronized (AppDatabase.class) {
+            for (AppDatabase db : OPEN_STORES.values()) {
+                db.close();
+            }
+            for (AppDatabase db : BACKGROUND_STORES.values()) {
+                db.close();
+            }
+            OPEN_STORES.clear();
+            BACKGROUND_STORES.clear();
+            PINS.clear();
+            currentStore = DEFAULT_STORE;
+        }
+    }
+
+    // Будує (але ще не відкриває) базу магазину.
+    private static AppDatabase build(Context context, String storeName) {
+        Context appContext = context.getApplicationContext(); // Беремо загальний контекст додатка
+        return Room.databaseBuilder(appContext,
+                        AppDatabase.class, // Наш клас бази даних
+                        storeName + DB_SUFFIX) // Окремий файл для кожного магазину
+                // Переносимо старі дані в нову структуру таблиць, нічого не видаляючи
+                .addMigrations(MIGRATIONS)
+                // Якщо Room не знає, як перенести дані (дуже стара версія), він видалить стару базу
+                // і створить нову. Тоді й курсор синхронізації вже неправдивий - забуваємо його,
+                // щоб наступна синхронізація завантажила весь каталог наново.
+                .fallbackToDestructiveMigration()
+                .addCallback(new Callback() {
+                    @Override
+                    public void onDestructiveMigration(@NonNull SupportSQLiteDatabase db) {
+                        DessertSyncer.forgetSyncState(SyncWorker.syncPrefs(appContext), storeName);
+                    }
+                })
+                .build(); // Будуємо!
+    }
+
+    // Закриває найдавніше використані бази, доки їх не стане MAX_OPEN_STORES.
+    // Поточну і закріплені пропускаємо - якщо закривати більше нічого, ліміт тимчасово перевищено.
+    private static void evictIdleStores() {
+        Iterator<Map.Entry<String, AppDatabase>> it = OPEN_STORES.entrySet().iterator();
+        while (OPEN_STORES.size() > MAX_OPEN_STORES && it.hasNext()) {
+            Map.Entry<String, AppDatabase> entry = it.next();
+            if (isIdle(entry.getKey())) {
+                entry.getValue().close(); // Закриваємо базу, яку найдовше не використовували
+                it.remove();
+            }
+        }
+    }
+
+    // Чи можна закрити базу: це не поточний магазин і її ніхто не закріпив.
+    private static boolean isIdle(String storeName) {
+        return !storeName.equals(currentStore) && !PINS.containsKey(storeName);
+    }
+
+    /**
+     * Список усіх магазинів, для яких на пристрої вже є файл бази.
+     * Магазин за замовчуванням є у списку завжди.
+     */
+    public static List<String> getStoreNames(Context context) {
+        List<String> stores = new ArrayList<>();
+        stores.add(DEFAULT_STORE);
+        for (String fileName : context.getApplicationContext().databaseList()) {
+            // Пропускаємо службові файли SQLite (-wal, -shm, -journal)
+            if (fileName.endsWith(DB_SUFFIX)) {
+                String store = fileName.substring(0, fileName.length() - DB_SUFFIX.length());
+                if (!stores.contains(store)) {
+                    stores.add(store);
                 }
             }
         }
-        return INSTANCE; // Повертаємо готову базу
+        Collections.sort(stores.subList(1, stores.size())); // Магазин за замовчуванням лишаємо першим
+        return stores;
+    }
+
+    /**
+     * Рахує підсумки (кількість десертів і сумарну ціну) одразу по всіх магазинах.
+     * Замість того, щоб відкривати кожну базу через Room, беремо одне тимчасове з'єднання
+     * і приєднуємо до нього файли магазинів командою ATTACH DATABASE - тоді один SQL-запит
+     * з UNION ALL рахує все разом. Базу Room для цього не використовуємо: ATTACH на її
+     * з'єднанні вимкнув би режим WAL.
+     * Виконувати НЕ в головному потоці!
+     * @return Підсумок для кожного магазину, в якого вже є файл бази.
+     */
+    public static List<StoreSummary> loadStoreSummaries(Context context) {
+        List<String> stores = new ArrayList<>();
+        for (String store : getStoreNames(context)) {
+            File file = context.getApplicationContext().getDatabasePath(store + DB_SUFFIX);
+            if (file.exists()) {
+                migrateIfOutdated(context, store, file);
+                stores.add(store);
+            }
+        }
+
+        List<StoreSummary> summaries = new ArrayList<>();
+        // Тимчасова база в пам'яті - лише "точка", до якої приєднуємо файли магазинів
+        SQLiteDatabase aggregator = SQLiteDatabase.create(null);
+        try {
+            // Приєднуємо порціями, бо SQLite не дозволяє більше MAX_ATTACHED баз за раз
+            for (int from = 0; from < stores.size(); from += MAX_ATTACHED) {
+                List<String> chunk = stores.subList(from, Math.min(from + MAX_ATTACHED, stores.size()));
+                summaries.addAll(queryAttached(context, aggregator, chunk));
+            }
+        } finally {
+            aggregator.close();
+        }
+        return summaries;
+    }
+
+    // ATTACH бачить файл "як є": магазин, який ще не відкривали після оновлення додатка,
+    // має стару структуру таблиць. Такий файл спершу оновлюємо через Room (міграції).
+    private static void migrateIfOutdated(Context context, String store, File file) {
+        int version;
+        try (SQLiteDatabase raw = SQLiteDatabase.openDatabase(file.getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY)) {
+            version = raw.getVersion();
+        }
+        if (version < VERSION) {
+            AppDatabase db = acquire(context, store);
+            try {
+                db.getOpenHelper().getWritableDatabase(); // Room відкриває файл і виконує міграції
+            } finally {
+                release(store);
+            }
+        }
+    }
+
+    // Приєднує бази магазинів із chunk, рахує по них підсумки одним запитом і від'єднує.
+    private static List<StoreSummary> queryAttached(Context context, SQLiteDatabase aggregator, List<String> chunk) {
+        StringBuilder sql = new StringBuilder();
+        String[] args = new String[chunk.size()];
+        int attached = 0;
+        try {
+            for (int i = 0; i < chunk.size(); i++) {
+                File file = context.getApplicationContext().getDatabasePath(chunk.get(i) + DB_SUFFIX);
+                aggregator.execSQL("ATTACH DATABASE ? AS s" + i, new Object[]{file.getAbsolutePath()});
+                attached++;
+                if (i > 0) {
+                    sql.append(" UNION ALL ");
+                }
+                sql.append("SELECT ? AS store, COUNT(*) AS dessertCount, COALESCE(SUM(price), 0) AS totalPrice")
+                        .append(" FROM s").append(i).append(".desserts WHERE deleted = 0");
+                args[i] = chunk.get(i);
+            }
+
+            List<StoreSummary> result = new ArrayList<>();
+            try (Cursor cursor = aggregator.rawQuery(sql.toString(), args)) {
+                while (cursor.moveToNext()) {
+                    result.add(new StoreSummary(cursor.getString(0), cursor.getInt(1), cursor.getDouble(2)));
+                }
+            }
+            return result;
+        } finally {
+            for (int i = 0; i < attached; i++) {
+                aggregator.execSQL("DETACH DATABASE s" + i);
+            }
+        }
+    }
+
+    // Назва магазину стає назвою файлу, тому дозволяємо лише безпечні символи.
+    private static void checkStoreName(String storeName) {
+        if (storeName == null || !storeName.matches("[\\p{L}\\p{N}_-]+")) {
+            throw new IllegalArgumentException("Назва магазину може містити лише літери, цифри, '_' та '-'");
+        }
     }
-}
\ No newline at end of file
+}
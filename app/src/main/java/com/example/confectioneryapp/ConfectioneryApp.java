@@ -0,0 +1,18 @@
+package com.example.confectioneryapp;
+
+import android.app.Application;
+
+/**
+ * Клас усього додатка. Створюється системою один раз, ще до MainActivity.
+ * Тут підключаємо MemoryBudgetManager, щоб він отримував сигнали про нестачу пам'яті,
+ * і повертаємо магазин, з яким користувач працював до перезапуску.
+ */
+public class ConfectioneryApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        AppDatabase.restoreCurrentStore(this);
+        registerComponentCallbacks(MemoryBudgetManager.getInstance());
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.confectioneryapp;
+
+/**
+ * Результат підрахунку собівартості: номер і назва десерту,
+ * його ціна продажу та сума вартості всіх інгредієнтів.
+ * Рахує все сама база даних (див. IngredientDao.getDessertCosts()).
+ */
+public class DessertCost {
+
+    public int dessertId;
+
+    public String name;
+
+    /**
+     * Ціна продажу десерту (з таблиці "desserts").
+     */
+    public double price;
+
+    /**
+     * Сума (ціна за одиницю * кількість) по всіх інгредієнтах рецепту.
+     * Для десерту без рецепту буде 0.
+     */
+    public double ingredientCost;
+}
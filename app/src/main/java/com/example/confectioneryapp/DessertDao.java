@@ -5,6 +5,7 @@ import androidx.room.Dao;          // Говорить Room, що це Data Acce
 import androidx.room.Delete;       // Анотація для методу видалення запису
 import androidx.room.Insert;       // Анотація для методу вставки нового запису
 import androidx.room.Query;        // Анотація для написання власних SQL-запитів
+import androidx.room.Transaction;  // Щоб кілька запитів виконувалися як одна операція
 import androidx.room.Update;       // Анотація для методу оновлення запису
 
 import java.util.List;
@@ -22,15 +23,25 @@ public interface DessertDao {
      * Вони будуть відсортовані за номером (id) так, щоб новіші були першими.
      * LiveData дозволяє екрану автоматично оновлювати список, якщо щось змінилося в базі.
      */
-    @Query("SELECT * FROM desserts ORDER BY id DESC")
+    @Query("SELECT * FROM desserts WHERE deleted = 0 ORDER BY id DESC")
     LiveData<List<DessertEntity>> getAllDesserts();
 
+    /**
+     * Як getAllDesserts(), але лише перші :limit десертів ("вікно" списку).
+     * Так у пам'яті немає всієї таблиці одразу - вікно росте, коли користувач гортає вниз,
+     * і зменшується, коли системі бракує пам'яті.
+     * @param limit - скільки найновіших десертів завантажити.
+     */
+    @Query("SELECT * FROM desserts WHERE deleted = 0 ORDER BY id DESC LIMIT :limit")
+    LiveData<List<DessertEntity>> getDessertsWindow(int limit);
+
     /**
      * Додає новий десерт в базу.
      * @param dessert - це той десерт, який ми хочемо зберегти.
+     * @return номер (id), який база призначила десерту.
      */
     @Insert
-    void insertDessert(DessertEntity dessert);
+    long insertDessert(DessertEntity dessert);
 
     /**
      * Оновлює інформацію про вже існуючий десерт.
@@ -54,4 +65,156 @@ public interface DessertDao {
     // Назва таблиці "desserts" і поле "id"
     @Query("SELECT * FROM desserts WHERE id = :dessertId LIMIT 1")
     DessertEntity getDessertById(int dessertId);
+
+    /**
+     * Десерти, змінені на пристрої, які ще не відправлені на сервер (разом з "надгробками" видалених).
+     * Беремо порціями "після id", щоб не тягнути в пам'ять усю таблицю одразу
+     * і не брати ту саму порцію вдруге, якщо якийсь рядок лишився "брудним".
+     * @param afterId - брати лише десерти з id, більшим за цей (0 - з початку).
+     * @param limit - скільки рядків взяти за раз.
+     */
+    @Query("SELECT * FROM desserts WHERE dirty = 1 AND id > :afterId ORDER BY id LIMIT :limit")
+    List<DessertEntity> getDirtyDesserts(int afterId, int limit);
+
+    /**
+     * Призначає десерту глобальний номер, якщо його ще немає.
+     * Оновлюємо лише одне поле, щоб не затерти зміни, які користувач міг зробити паралельно.
+     */
+    @Query("UPDATE desserts SET syncId = :syncId WHERE id = :dessertId AND syncId IS NULL")
+    void assignSyncId(int dessertId, String syncId);
+
+    /**
+     * Скільки всього десертів у базі магазину (без видалених).
+     */
+    @Query("SELECT COUNT(*) FROM desserts WHERE deleted = 0")
+    int getDessertCount();
+
+    /**
+     * Знаходить десерти за їхніми глобальними номерами одним запитом (IN),
+     * а не окремим запитом на кожен номер.
+     * @param syncIds - список номерів (не більше кількох сотень за раз).
+     */
+    @Query("SELECT * FROM desserts WHERE syncId IN (:syncIds)")
+    List<DessertEntity> getDessertsBySyncIds(List<String> syncIds);
+
+    /**
+     * Позначає десерт як відправлений на сервер.
+     * Прийняту сервером версію зберігаємо завжди - це нова базова версія десерту.
+     * А "чистим" рядок стає лише тоді, коли updatedAt не змінився: якщо користувач
+     * відредагував десерт під час відправки, ця зміна лишиться "брудною" і піде наступного разу
+     * вже з правильною базовою версією (без фальшивого конфлікту з власною ж попередньою зміною).
+     */
+    @Query("UPDATE desserts SET version = :version, "
+            + "dirty = CASE WHEN updatedAt = :updatedAt THEN 0 ELSE dirty END "
+            + "WHERE id = :dessertId")
+    void markSynced(int dessertId, long version, long updatedAt);
+
+    /**
+     * Знаходить десерти з будь-якою з цих назв (у "нормальній" формі) одним запитом.
+     * Тип перевіряємо вже в коді - так вистачає одного IN на всю порцію з сервера.
+     * @param normalizedNames - назви (не більше кількох сотень за раз).
+     */
+    @Query("SELECT * FROM desserts WHERE normalizedName IN (:normalizedNames)")
+    List<DessertEntity> getDessertsByNormalizedNames(List<String> normalizedNames);
+
+    /**
+     * Видаляє десерт за номером (разом з його рецептом - CASCADE).
+     */
+    @Query("DELETE FROM desserts WHERE id = :dessertId")
+    void deleteDessertById(int dessertId);
+
+    /**
+     * Видаляє десерт за вибором користувача.
+     * Десерт, якого сервер ще не бачив, видаляємо одразу. Синхронізований - лишаємо "надгробком",
+     * щоб наступна синхронізація видалила його і на сервері (і на інших пристроях).
+     */
+    @Transaction
+    default void deleteOrTombstone(int dessertId) {
+        DessertEntity dessert = getDessertById(dessertId);
+        if (dessert == null || dessert.isDeleted()) {
+            return;
+        }
+        if (dessert.getSyncId() == null) {
+            deleteDessertById(dessertId);
+        } else {
+            dessert.markDeleted();
+            updateDessert(dessert);
+        }
+    }
+
+    /**
+     * Шукає десерт з такою ж назвою і типом (у "нормальній" формі, див. DessertEntity.normalize()).
+     * Завдяки унікальному індексу на (normalizedName, normalizedType) це швидкий пошук за індексом.
+     * @return Знайдений десерт або null.
+     */
+    @Query("SELECT * FROM desserts WHERE normalizedName = :normalizedName AND normalizedType = :normalizedType LIMIT 1")
+    DessertEntity findByNormalizedNameAndType(String normalizedName, String normalizedType);
+
+    /**
+     * Додає десерт, лише якщо десерту з такою ж назвою і типом ще немає.
+     * Перевірка і вставка - в одній транзакції, тому між ними ніхто не "вклиниться".
+     * @param dessert - новий десерт. Після успішного виклику в ньому буде id рядка в базі.
+     * @return Десерт, який уже має таку назву і тип, або null, якщо новий десерт додано.
+     */
+    @Transaction
+    default DessertEntity insertIfUnique(DessertEntity dessert) {
+        DessertEntity existing = findByNormalizedNameAndType(dessert.getNormalizedName(), dessert.getNormalizedType());
+        if (existing != null) {
+            return existing;
+        }
+        dessert.setId((int) insertDessert(dessert));
+        return null;
+    }
+
+    /**
+     * Записує лише поля, які редагує користувач, і позначає десерт "брудним".
+     * syncId і version не чіпаємо: поки діалог був відкритий, SyncWorker міг їх змінити,
+     * і копія з екрану вже застаріла. Видалений за цей час десерт ("надгробок") не воскрешаємо.
+     */
+    @Query("UPDATE desserts SET name = :name, normalizedName = :normalizedName, "
+            + "type = :type, normalizedType = :normalizedType, price = :price, weight = :weight, "
+            + "description = :description, status = :status, updatedAt = :updatedAt, dirty = 1 "
+            + "WHERE id = :dessertId AND deleted = 0")
+    void updateEditableFields(int dessertId, String name, String normalizedName, String type, String normalizedType,
+                              double price, int weight, String description, String status, long updatedAt);
+
+    /**
+     * Оновлює десерт, лише якщо його нові назва і тип не зайняті іншим десертом.
+     * Зберігаються тільки поля, які редагує користувач (див. updateEditableFields()).
+     * @param dessert - десерт з новими даними (з правильним id).
+     * @return Інший десерт з такою ж назвою і типом, або null, якщо оновлення збережено.
+     */
+    @Transaction
+    default DessertEntity updateIfUnique(DessertEntity dessert) {
+        DessertEntity existing = findByNormalizedNameAndType(dessert.getNormalizedName(), dessert.getNormalizedType());
+        if (existing != null && existing.getId() != dessert.getId()) {
+            return existing;
+        }
+        updateEditableFields(dessert.getId(), dessert.getName(), dessert.getNormalizedName(),
+                dessert.getType(), dessert.getNormalizedType(), dessert.getPrice(), dessert.getWeight(),
+                dessert.getDescription(), dessert.getStatus(), dessert.getUpdatedAt());
+        return null;
+    }
+
+    /**
+     * Додає десерт, а якщо десерт з такою ж назвою і типом вже є - оновлює його.
+     * Так повторний імпорт тих самих десертів не створює дублікатів.
+     * Для ручного додавання з діалогу це не підходить - там потрібен insertIfUnique().
+     * @param dessert - десерт для збереження. Після виклику в ньому буде id рядка в базі.
+     */
+    @Transaction
+    default void upsertDessert(DessertEntity dessert) {
+        DessertEntity existing = findByNormalizedNameAndType(dessert.getNormalizedName(), dessert.getNormalizedType());
+        if (existing == null) {
+            dessert.setId((int) insertDessert(dessert));
+            return;
+        }
+        // Оновлюємо знайдений рядок, але не губимо його "паспорт" для синхронізації
+        dessert.setId(existing.getId());
+        if (dessert.getSyncId() == null) {
+            dessert.setSyncId(existing.getSyncId());
+            dessert.setVersion(existing.getVersion());
+        }
+        updateDessert(dessert);
+    }
 }
\ No newline at end of file
@@ -1,14 +1,20 @@
 package com.example.confectioneryapp; // Тут лежить наш клас, це як адреса для нього
 
 import androidx.room.Entity;     // Ця штука каже, що клас буде табличкою в базі даних
+import androidx.room.Index;      // Індекси, щоб швидко шукати рядки для синхронізації
 import androidx.room.PrimaryKey;  // А це – що поле буде унікальним ключем, як номер паспорта
 import androidx.annotation.NonNull; // Це означає "не можна залишати порожнім" (null)
 
+import java.util.Locale;
+
 /**
  * Це наш "Десерт". Описує, яку інформацію про кожен десертик ми зберігаємо.
  * У базі даних це буде окрема таблиця під назвою "desserts".
  */
-@Entity(tableName = "desserts")
+@Entity(tableName = "desserts",
+        indices = {@Index(value = {"syncId"}, unique = true), @Index("dirty"),
+                // Десерт з тією ж назвою і типом (без різниці у регістрі та пробілах) може бути лише один
+                @Index(value = {"normalizedName", "normalizedType"}, unique = true)})
 public class DessertEntity {
 
     /**
@@ -32,6 +38,17 @@ public class DessertEntity {
     @NonNull
     private String type;
 
+    /**
+     * Назва і тип у "нормальній" формі: малими літерами, без зайвих пробілів.
+     * Заповнюються самі в setName()/setType() і потрібні лише для пошуку дублікатів:
+     * "Торт  Наполеон" і "торт наполеон" - це один і той самий десерт.
+     */
+    @NonNull
+    private String normalizedName = "";
+
+    @NonNull
+    private String normalizedType = "";
+
     /**
      * Скільки коштує наш десертик. Може бути з копійками, тому double.
      */
@@ -55,6 +72,39 @@ public class DessertEntity {
     @NonNull
     private String status = "В наявності";
 
+    /**
+     * Глобальний номер десерту для синхронізації з сервером (UUID).
+     * Локальний id на кожному пристрої свій, а syncId однаковий всюди.
+     * Поки десерт жодного разу не відправлявся на сервер, тут null.
+     */
+    private String syncId;
+
+    /**
+     * Версія запису на сервері. Сервер збільшує її при кожній зміні.
+     * Якщо при синхронізації приходить запис з більшою версією - він "перемагає".
+     */
+    private long version;
+
+    /**
+     * Час останньої локальної зміни (в мілісекундах).
+     */
+    private long updatedAt;
+
+    /**
+     * true - десерт змінено на пристрої, і ці зміни ще не відправлені на сервер.
+     */
+    private boolean dirty;
+
+    /**
+     * true - десерт видалено, але сервер про це ще не знає ("надгробок").
+     * Такий рядок не показуємо; після відправки на сервер його видаляємо насправді.
+     */
+    private boolean deleted;
+
+    // Початок "назви" надгробка. normalize() обрізає пробіли по краях,
+    // тож справжня нормалізована назва ніколи не починається з пробілу і не збіжеться з надгробком.
+    static final String TOMBSTONE_PREFIX = " deleted:";
+
     // Далі йдуть методи, щоб дізнатися або змінити інформацію про десерт.
     // Це як кнопки на пульті: одна показує, інша змінює.
 
@@ -73,6 +123,7 @@ public class DessertEntity {
 
     public void setName(@NonNull String name) {
         this.name = name; // Змінити назву
+        this.normalizedName = normalize(name);
     }
 
     @NonNull
@@ -82,6 +133,39 @@ public class DessertEntity {
 
     public void setType(@NonNull String type) {
         this.type = type; // Змінити тип
+        this.normalizedType = normalize(type);
+    }
+
+    @NonNull
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    // Потрібен лише Room, щоб прочитати поле з бази. Вручну не викликаємо - є setName().
+    public void setNormalizedName(@NonNull String normalizedName) {
+        this.normalizedName = normalizedName;
+    }
+
+    @NonNull
+    public String getNormalizedType() {
+        return normalizedType;
+    }
+
+    // Потрібен лише Room, щоб прочитати поле з бази. Вручну не викликаємо - є setType().
+    public void setNormalizedType(@NonNull String normalizedType) {
+        this.normalizedType = normalizedType;
+    }
+
+    /**
+     * Приводить назву або тип до "нормальної" форми для порівняння:
+     * обрізає пробіли по краях, замінює кілька пробілів одним і робить усі літери малими.
+     */
+    @NonNull
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
     }
 
     public double getPrice() {
@@ -139,4 +223,64 @@ public class DessertEntity {
             throw new IllegalArgumentException("Такого статусу немає! Можна: 'В наявності', 'Під замовлення', 'Немає в наявності'.");
         }
     }
+
+    public String getSyncId() {
+        return syncId;
+    }
+
+    public void setSyncId(String syncId) {
+        this.syncId = syncId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    /**
+     * Перетворює синхронізований десерт на "надгробок": сервер має дізнатися про видалення.
+     * Назва й тип для перевірки унікальності звільняються - такий самий десерт можна одразу створити знову.
+     */
+    public void markDeleted() {
+        this.deleted = true;
+        this.normalizedName = TOMBSTONE_PREFIX + syncId;
+        this.normalizedType = "";
+        markChanged();
+    }
+
+    /**
+     * Позначає, що десерт змінився на пристрої і його треба відправити на сервер.
+     * Викликаємо перед кожним збереженням змін користувача.
+     */
+    public void markChanged() {
+        this.dirty = true;
+        this.updatedAt = System.currentTimeMillis();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.example.confectioneryapp;
+
+import androidx.room.Entity;     // Ця штука каже, що клас буде табличкою в базі даних
+import androidx.room.ForeignKey; // Зв'язок з іншими таблицями (десерти та інгредієнти)
+import androidx.room.Index;      // Індекс, щоб швидко шукати за номером інгредієнта
+
+/**
+ * Це "рецепт": табличка, яка каже, скільки якого інгредієнта йде в який десерт.
+ * Кожен рядок - це одна пара (десерт, інгредієнт) і кількість.
+ * Якщо десерт або інгредієнт видалити, відповідні рядки рецепту зникнуть самі (CASCADE).
+ */
+@Entity(tableName = "dessert_ingredients",
+        primaryKeys = {"dessertId", "ingredientId"}, // Один інгредієнт записуємо в десерт лише один раз
+        foreignKeys = {
+                @ForeignKey(entity = DessertEntity.class,
+                        parentColumns = "id",
+                        childColumns = "dessertId",
+                        onDelete = ForeignKey.CASCADE),
+                @ForeignKey(entity = IngredientEntity.class,
+                        parentColumns = "id",
+                        childColumns = "ingredientId",
+                        onDelete = ForeignKey.CASCADE)
+        },
+        // dessertId вже є першим у первинному ключі, тому окремий індекс потрібен лише для ingredientId
+        indices = {@Index("ingredientId")})
+public class DessertIngredientCrossRef {
+
+    /**
+     * Номер десерту, до якого належить цей рядок рецепту.
+     */
+    private int dessertId;
+
+    /**
+     * Номер інгредієнта.
+     */
+    private int ingredientId;
+
+    /**
+     * Скільки одиниць інгредієнта потрібно (в одиницях з IngredientEntity.unit).
+     */
+    private double quantity;
+
+    public int getDessertId() {
+        return dessertId;
+    }
+
+    public void setDessertId(int dessertId) {
+        this.dessertId = dessertId;
+    }
+
+    public int getIngredientId() {
+        return ingredientId;
+    }
+
+    public void setIngredientId(int ingredientId) {
+        this.ingredientId = ingredientId;
+    }
+
+    public double getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Встановлюємо кількість. Інгредієнт, якого "нуль грамів", у рецепті не потрібен.
+     */
+    public void setQuantity(double quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Кількість інгредієнта повинна бути більшою за нуль");
+        }
+        this.quantity = quantity;
+    }
+}
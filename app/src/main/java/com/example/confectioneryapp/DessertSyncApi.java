@@ -0,0 +1,71 @@
+package com.example.confectioneryapp;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * "Контракт" для обміну десертами з сервером.
+ * DessertSyncer працює лише з цим інтерфейсом, тому справжній HTTP-клієнт
+ * (HttpDessertSyncApi) легко замінити локальною заглушкою сервера.
+ */
+public interface DessertSyncApi {
+
+    /**
+     * Одна "сторінка" змін з сервера.
+     */
+    class Page {
+        /** Десерти, які змінилися на сервері після переданого курсора. */
+        public final List<DessertEntity> items;
+        /** Курсор, з якого треба продовжити наступного разу. */
+        public final String cursor;
+        /** ETag відповіді: версія всього каталогу магазину, а не цієї сторінки (див. pull()). */
+        public final String etag;
+        /** true - на сервері є ще сторінки змін. */
+        public final boolean hasMore;
+
+        public Page(List<DessertEntity> items, String cursor, String etag, boolean hasMore) {
+            this.items = items;
+            this.cursor = cursor;
+            this.etag = etag;
+            this.hasMore = hasMore;
+        }
+    }
+
+    /**
+     * Результат відправки порції змін на сервер.
+     */
+    class PushResult {
+        /** Прийняті записи (з новими версіями від сервера). */
+        public final List<DessertEntity> accepted;
+        /** Записи, які на сервері вже новіші, - сервер повертає свою копію. */
+        public final List<DessertEntity> conflicts;
+
+        public PushResult(List<DessertEntity> accepted, List<DessertEntity> conflicts) {
+            this.accepted = accepted;
+            this.conflicts = conflicts;
+        }
+    }
+
+    /**
+     * Дістає з сервера зміни після курсора.
+     *
+     * ETag тут - версія всієї стрічки змін магазину (напр., номер останньої зміни на сервері),
+     * однакова для будь-якого курсора і limit. Тому сервер відповідає 304, лише якщо в каталозі
+     * магазину нічого не змінилось з моменту відповіді, яка цей ETag видала, - незалежно від курсора.
+     * Клієнт зберігає ETag тільки з останньої сторінки (hasMore == false), разом з курсором тієї ж
+     * сторінки: "нічого не змінилось з того часу" тоді означає і "після цього курсора змін немає",
+     * тож 304 на запит з просунутим курсором нічого не приховує.
+     *
+     * @param cursor Курсор з минулої синхронізації (null - забрати все з початку).
+     * @param etag ETag з останньої сторінки минулої синхронізації (може бути null).
+     * @param limit Максимальна кількість записів на сторінці.
+     * @return Сторінка змін або null, якщо сервер відповів "нічого не змінилось" (304).
+     */
+    Page pull(String cursor, String etag, int limit) throws IOException;
+
+    /**
+     * Відправляє на сервер порцію змінених на пристрої десертів.
+     * @param desserts Десерти з їхніми базовими версіями (щоб сервер міг виявити конфлікт).
+     */
+    PushResult push(List<DessertEntity> desserts) throws IOException;
+}
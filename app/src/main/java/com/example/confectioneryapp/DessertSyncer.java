@@ -0,0 +1,239 @@
+package com.example.confectioneryapp;
+
+import android.content.SharedPreferences; // Тут зберігаємо курсор і ETag останньої синхронізації
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Уся логіка синхронізації десертів одного магазину з сервером.
+ * Спочатку відправляємо локальні зміни, потім забираємо зміни з сервера.
+ * Все робиться порціями по BATCH_SIZE рядків, а кожна порція записується в базу
+ * однією транзакцією - так і 50 тисяч рядків при першій синхронізації проходять швидко.
+ *
+ * Конфлікти вирішуються за версією: перемагає запис з більшою версією (сервер її збільшує
+ * при кожній прийнятій зміні). Збіг за назвою і типом з іншим рядком - див. applyRemote().
+ * Видалення синхронізуються "надгробками" (DessertEntity.isDeleted()): видалений на пристрої
+ * десерт відправляється як звичайна зміна і зникає з бази, щойно сервер її прийме.
+ * Якщо ж хтось встиг змінити десерт на сервері, зміна перемагає видалення - десерт повертається.
+ *
+ * Виконувати НЕ в головному потоці!
+ */
+public class DessertSyncer {
+
+    // Скільки рядків в одній порції. Має бути менше за 999 - ліміт параметрів SQLite для IN (...).
+    // Рядки порції записуються по одному, але в одній транзакції - це так само швидко, як пакетна вставка.
+    static final int BATCH_SIZE = 500;
+
+    private final AppDatabase db;
+    private final DessertDao dessertDao;
+    private final DessertSyncApi api;
+    private final SharedPreferences prefs;
+    private final String cursorKey;
+    private final String etagKey;
+
+    /**
+     * @param db База магазину, який синхронізуємо.
+     * @param api Клієнт сервера (справжній або заглушка).
+     * @param prefs Де зберігати курсор та ETag між запусками.
+     * @param storeName Назва магазину - у кожного магазину свій курсор.
+     */
+    public DessertSyncer(AppDatabase db, DessertSyncApi api, SharedPreferences prefs, String storeName) {
+        this.db = db;
+        this.dessertDao = db.dessertDao();
+        this.api = api;
+        this.prefs = prefs;
+        this.cursorKey = storeName + "_cursor";
+        this.etagKey = storeName + "_etag";
+    }
+
+    /**
+     * Забуває курсор і ETag магазину - наступна синхронізація завантажить весь каталог з початку.
+     * Потрібно, коли локальну базу створено наново (старий курсор тоді вже неправдивий).
+     */
+    public static void forgetSyncState(SharedPreferences prefs, String storeName) {
+        prefs.edit()
+                .remove(storeName + "_cursor")
+                .remove(storeName + "_etag")
+                .apply();
+    }
+
+    /**
+     * Повна синхронізація: відправити свої зміни, потім забрати чужі.
+     * @throws IOException якщо сервер недоступний - тоді SyncWorker спробує ще раз пізніше.
+     *                     Все, що встигли синхронізувати до помилки, не втрачається.
+     */
+    public void sync() throws IOException {
+        pushLocalChanges();
+        pullRemoteChanges();
+    }
+
+    /**
+     * Відправляє на сервер усі "брудні" десерти порціями.
+     */
+    void pushLocalChanges() throws IOException {
+        int afterId = 0;
+        List<DessertEntity> batch;
+        while (!(batch = dessertDao.getDirtyDesserts(afterId, BATCH_SIZE)).isEmpty()) {
+            afterId = batch.get(batch.size() - 1).getId();
+
+            // Новим десертам видаємо глобальний номер і одразу зберігаємо його,
+            // щоб при повторній спробі сервер отримав той самий номер, а не дублікат
+            List<DessertEntity> withoutSyncId = new ArrayList<>();
+            for (DessertEntity dessert : batch) {
+                if (dessert.getSyncId() == null) {
+                    dessert.setSyncId(UUID.randomUUID().toString());
+                    withoutSyncId.add(dessert);
+                }
+            }
+            if (!withoutSyncId.isEmpty()) {
+                db.runInTransaction(() -> {
+                    for (DessertEntity dessert : withoutSyncId) {
+                        dessertDao.assignSyncId(dessert.getId(), dessert.getSyncId());
+                    }
+                });
+            }
+
+            DessertSyncApi.PushResult result = api.push(batch);
+
+            Map<String, DessertEntity> sent = new HashMap<>();
+            for (DessertEntity dessert : batch) {
+                sent.put(dessert.getSyncId(), dessert);
+            }
+            db.runInTransaction(() -> {
+                for (DessertEntity accepted : result.accepted) {
+                    DessertEntity local = sent.get(accepted.getSyncId());
+                    if (local == null) {
+                        continue;
+                    }
+                    if (local.isDeleted()) {
+                        dessertDao.deleteDessertById(local.getId()); // Сервер знає про видалення - надгробок не потрібен
+                    } else {
+                        // Якщо користувач змінив десерт під час відправки, він лишиться "брудним"
+                        dessertDao.markSynced(local.getId(), accepted.getVersion(), local.getUpdatedAt());
+                    }
+                }
+                // На сервері вже новіша версія - приймаємо її замість нашої
+                applyRemote(result.conflicts);
+            });
+        }
+    }
+
+    /**
+     * Забирає з сервера всі зміни після збереженого курсора, сторінка за сторінкою.
+     * Курсор зберігається після кожної сторінки, тож після збою продовжуємо з того ж місця.
+     */
+    void pullRemoteChanges() throws IOException {
+        String cursor = prefs.getString(cursorKey, null);
+        // ETag - версія всього каталогу (див. DessertSyncApi.pull()). Надсилаємо його лише в першому запиті:
+        // якщо каталог змінився, наступні сторінки забираємо без умов
+        String etag = prefs.getString(etagKey, null);
+        while (true) {
+            DessertSyncApi.Page page = api.pull(cursor, etag, BATCH_SIZE);
+            if (page == null) {
+                return; // 304: з минулого разу на сервері нічого не змінилось
+            }
+            etag = null;
+            db.runInTransaction(() -> applyRemote(page.items));
+            cursor = page.cursor;
+
+            SharedPreferences.Editor editor = prefs.edit().putString(cursorKey, cursor);
+            if (!page.hasMore) {
+                // ETag останньої сторінки: курсор дійшов до кінця стрічки, тож 304 наступного разу
+                // означатиме, що після цього курсора справді нічого нового
+                editor.putString(etagKey, page.etag);
+            } else {
+                editor.remove(etagKey); // Якщо перервемось посеред стрічки, 304 на цей ETag загубив би решту сторінок
+            }
+            editor.apply();
+
+            if (!page.hasMore) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Записує в базу десерти з сервера (викликати всередині транзакції).
+     * Локальні копії шукаємо двома запитами з IN на всю порцію: за syncId і за назвою.
+     * Новий десерт додаємо, а існуючий перезаписуємо лише тоді, коли версія сервера більша.
+     *
+     * Назва і тип десерту в магазині унікальні. Якщо серверний десерт збігається за ними
+     * з іншим локальним рядком, сервер перемагає: його запис зливається в цей рядок
+     * (рядок отримує syncId, версію і дані з сервера), а не пропускається мовчки -
+     * інакше курсор пішов би далі, і цей десерт більше ніколи б не прийшов.
+     * Синхронізовані рядки тут ніколи не видаляються мовчки: або за командою сервера
+     * (надгробок з сервера), або через власний надгробок, який піде на сервер.
+     */
+    private void applyRemote(List<DessertEntity> remote) {
+        if (remote.isEmpty()) {
+            return;
+        }
+        List<String> syncIds = new ArrayList<>(remote.size());
+        List<String> names = new ArrayList<>(remote.size());
+        for (DessertEntity dessert : remote) {
+            syncIds.add(dessert.getSyncId());
+            names.add(dessert.getNormalizedName());
+        }
+        Map<String, DessertEntity> localBySyncId = new HashMap<>();
+        for (DessertEntity local : dessertDao.getDessertsBySyncIds(syncIds)) {
+            localBySyncId.put(local.getSyncId(), local);
+        }
+        Map<String, DessertEntity> localByKey = new HashMap<>();
+        for (DessertEntity local : dessertDao.getDessertsByNormalizedNames(names)) {
+            localByKey.put(key(local), local);
+        }
+
+        for (DessertEntity dessert : remote) {
+            DessertEntity local = localBySyncId.get(dessert.getSyncId());
+            if (local != null && dessert.getVersion() <= local.getVersion()) {
+                continue; // Наша копія така ж або новіша - лишаємо її
+            }
+            if (dessert.isDeleted()) {
+                // Десерт видалили на сервері (або на іншому пристрої)
+                if (local != null) {
+                    dessertDao.deleteDessertById(local.getId());
+                    localBySyncId.remove(local.getSyncId());
+                    localByKey.remove(key(local));
+                }
+                continue;
+            }
+            DessertEntity sameName = localByKey.get(key(dessert));
+            if (local == null) {
+                local = sameName; // Зливаємо в рядок з тією ж назвою і типом, якщо він є
+            } else if (sameName != null && sameName.getId() != local.getId()) {
+                // Десерт на сервері перейменували на назву, яку вже має інший наш рядок.
+                // Двох однакових бути не може - лишається серверний
+                if (sameName.getSyncId() == null) {
+                    dessertDao.deleteDessertById(sameName.getId()); // Сервер про нього не знає
+                } else {
+                    // Інакше сервер і далі тримав би його, а в нас би його не було.
+                    // Надгробок звільняє назву і віднесе видалення на сервер
+                    sameName.markDeleted();
+                    dessertDao.updateDessert(sameName);
+                }
+            }
+
+            dessert.setDirty(false);
+            if (local == null) {
+                dessert.setId((int) dessertDao.insertDessert(dessert));
+            } else {
+                dessert.setId(local.getId());
+                dessertDao.updateDessert(dessert);
+                localByKey.remove(key(local));
+            }
+            // Наступні десерти цієї ж порції мають бачити вже оновлений стан
+            localBySyncId.put(dessert.getSyncId(), dessert);
+            localByKey.put(key(dessert), dessert);
+        }
+    }
+
+    // Ключ унікальності десерту: "нормальні" назва і тип
+    private static String key(DessertEntity dessert) {
+        return dessert.getNormalizedName() + '\n' + dessert.getNormalizedType();
+    }
+}
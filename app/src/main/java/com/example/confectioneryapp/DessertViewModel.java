@@ -1,12 +1,18 @@
 package com.example.confectioneryapp; // Пакет залишається тим самим
 
 import android.app.Application; // Потрібен для ViewModel, щоб мати доступ до ресурсів, якщо знадобиться
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.NonNull; // Помітка, що параметр або змінна не можуть бути null
+import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.AndroidViewModel; // Базовий клас для ViewModel, яка "знає" про контекст додатка
 import androidx.lifecycle.LiveData;     // Клас для даних, за якими можна "спостерігати" (наприклад, з UI)
+import androidx.lifecycle.MutableLiveData; // LiveData, значення якої ми можемо змінювати самі
+import androidx.lifecycle.Transformations; // Допомагає "перемикати" одну LiveData на іншу
 
 import java.util.List; // Для використання списків
+import java.util.function.Consumer;
 import java.util.concurrent.ExecutorService; // Штука для виконання задач в окремому потоці
 import java.util.concurrent.Executors;   // Допомагає створювати ExecutorService
 
@@ -17,58 +23,183 @@ import java.util.concurrent.Executors;   // Допомагає створюва
  */
 public class DessertViewModel extends AndroidViewModel {
 
-    // Наш інструмент (DAO) для роботи з таблицею десертів у базі даних.
-    // final означає, що після присвоєння значення цю змінну не можна буде змінити.
-    private final DessertDao dessertDao;
+    /**
+     * Результат збереження десерту. Обидва методи викликаються в головному потоці.
+     */
+    public interface SaveCallback {
+        void onSaved();
+
+        /**
+         * @param existing Десерт, у якого вже є така сама назва і тип.
+         */
+        void onDuplicate(DessertEntity existing);
+    }
+
+    // Скільки десертів завантажуємо спочатку і на скільки збільшуємо "вікно", коли користувач гортає вниз
+    static final int INITIAL_WINDOW = 200;
+    static final int WINDOW_STEP = 200;
+    // Найменше вікно - менше не стискаємось, навіть коли пам'яті критично бракує
+    static final int MIN_WINDOW = 50;
+
+    // Назва магазину, з яким зараз працюємо. Коли вона змінюється,
+    // список десертів нижче автоматично перемикається на базу нового магазину.
+    private final MutableLiveData<String> currentStore = new MutableLiveData<>();
 
-    // Список усіх десертів, який "живий". Тобто, якщо дані в базі зміняться,
+    // Скільки найновіших десертів зараз тримаємо в пам'яті ("вікно" списку).
+    // Не скидається, коли список звільняємо, - після повернення користувач побачить стільки ж рядків.
+    private final MutableLiveData<Integer> windowSize = new MutableLiveData<>(INITIAL_WINDOW);
+
+    // Десерти поточного магазину в межах вікна, "живий" список. Тобто, якщо дані в базі зміняться,
     // цей список автоматично оновить те, що бачить користувач на екрані.
-    private final LiveData<List<DessertEntity>> allDesserts;
+    // null - список звільнено, поки екран не видно; getAllDesserts() збудує його знову.
+    private LiveData<List<DessertEntity>> allDesserts;
 
     // Створюємо окремий потік для роботи з базою даних.
     // Це важливо, щоб не "гальмувати" основний потік, де малюється інтерфейс.
     // newSingleThreadExecutor() означає, що всі операції з базою будуть виконуватися по черзі в одному потоці.
     private final ExecutorService executorService = Executors.newSingleThreadExecutor();
 
+    // Щоб повертати результати з фонового потоку в головний (там живе UI)
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
     /**
      * Це конструктор. Він викликається, коли система створює нашу ViewModel.
      * @param application Посилання на наш додаток, щоб отримати доступ до бази даних.
      */
     public DessertViewModel(@NonNull Application application) {
         super(application); // Викликаємо конструктор батьківського класу
-        // Отримуємо "зв'язок" з нашою базою даних
-        AppDatabase db = AppDatabase.getInstance(application);
-        // Через базу даних отримуємо наш інструмент (DAO) для роботи з десертами
-        dessertDao = db.dessertDao(); // Тут ми використовуємо метод з AppDatabase, який ми оновили
-        // Запитуємо у DAO список усіх десертів. Цей список буде "живим".
-        allDesserts = dessertDao.getAllDesserts(); // А тут - метод з DessertDao, який ми теж оновили
+        currentStore.setValue(AppDatabase.getCurrentStore());
     }
 
     /**
      * Цей метод дозволяє іншим частинам програми (наприклад, нашому Activity)
-     * отримати "живий" список усіх десертів.
+     * отримати "живий" список десертів (найновіші, в межах поточного вікна).
+     * Якщо список звільняли (releaseList()), повертає новий - на нього треба підписатися знову.
+     * Викликати лише з головного потоку.
      * @return LiveData зі списком DessertEntity.
      */
     public LiveData<List<DessertEntity>> getAllDesserts() { // Назва методу тепер відповідає десертам
+        if (allDesserts == null) {
+            Application application = getApplication();
+            // switchMap: щоразу, коли змінюється магазин або розмір вікна, беремо "живий" список з бази
+            allDesserts = Transformations.switchMap(currentStore,
+                    store -> Transformations.switchMap(windowSize,
+                            limit -> AppDatabase.getInstance(application, store).dessertDao().getDessertsWindow(limit)));
+        }
         return allDesserts;
     }
 
+    /**
+     * @return Скільки десертів зараз лежить у пам'яті ViewModel (0 - список звільнено).
+     */
+    @VisibleForTesting
+    int getRetainedDessertCount() {
+        List<DessertEntity> shown = allDesserts != null ? allDesserts.getValue() : null;
+        return shown != null ? shown.size() : 0;
+    }
+
+    /**
+     * Збільшує вікно списку - викликаємо, коли користувач догортав майже до кінця.
+     * Якщо в базі десертів менше, ніж вміщує вікно, нічого не робимо:
+     * показувати більше вже нічого.
+     */
+    public void loadMore() {
+        List<DessertEntity> shown = allDesserts != null ? allDesserts.getValue() : null;
+        Integer window = windowSize.getValue();
+        if (shown != null && window != null && shown.size() >= window) {
+            windowSize.setValue(window + WINDOW_STEP);
+        }
+    }
+
+    /**
+     * Зменшує вікно списку, але не менше keepAtLeast рядків (і не менше MIN_WINDOW),
+     * щоб не зникли рядки, які користувач зараз бачить. Room перечитає менше рядків,
+     * і великий старий список звільниться. Викликати з головного потоку.
+     * @param keepAtLeast Скільки перших рядків мають лишитися у списку.
+     */
+    public void shrinkWindow(int keepAtLeast) {
+        int target = Math.max(MIN_WINDOW, keepAtLeast);
+        Integer window = windowSize.getValue();
+        if (window != null && window > target) {
+            windowSize.setValue(target);
+        }
+    }
+
+    /**
+     * Забуває список, щоб його рядки могли звільнитися. Викликає Activity, коли її не видно
+     * і вона вже відписалася: лише вона знає, чи список зараз на екрані.
+     * Поки на список ніхто не підписаний, postValue() нічого б не змінив - тримав би старі дані.
+     * Розмір вікна не чіпаємо: після повернення getAllDesserts() прочитає стільки ж рядків.
+     * Викликати з головного потоку.
+     */
+    public void releaseList() {
+        allDesserts = null;
+    }
+
+    /**
+     * @return "Живе" значення з назвою поточного магазину.
+     */
+    public LiveData<String> getCurrentStore() {
+        return currentStore;
+    }
+
+    /**
+     * Перемикає екран на інший магазин: список десертів одразу
+     * почне показувати дані з бази цього магазину.
+     * @param storeName Назва магазину.
+     */
+    public void switchStore(String storeName) {
+        AppDatabase.switchStore(getApplication(), storeName);
+        // Спершу магазин, потім вікно: інакше зміна вікна перечитала б старий магазин
+        // і зробила б його знову "останнім використаним".
+        currentStore.setValue(storeName);
+        windowSize.setValue(INITIAL_WINDOW); // Новий магазин починаємо з початкового вікна
+    }
+
+    /**
+     * Рахує підсумки по всіх магазинах (у фоновому потоці).
+     * @return LiveData, в яку потрапить результат, щойно він буде готовий.
+     */
+    public LiveData<List<StoreSummary>> loadStoreSummaries() {
+        MutableLiveData<List<StoreSummary>> result = new MutableLiveData<>();
+        executorService.execute(() -> result.postValue(AppDatabase.loadStoreSummaries(getApplication())));
+        return result;
+    }
+
     /**
      * Додає новий десерт до бази даних.
-     * Робить це в окремому потоці, щоб не заблокувати UI.
+     * Робить це в окремому потоці, щоб не заблокувати UI. Якщо десерт з такою назвою і типом
+     * вже є, нічого не записуємо і повідомляємо про це через result.
      * @param dessert - об'єкт десерту, який потрібно зберегти.
+     * @param result - куди повідомити результат (викликається в головному потоці).
      */
-    public void insert(DessertEntity dessert) { // Параметр тепер теж DessertEntity
-        executorService.execute(() -> dessertDao.insertDessert(dessert)); // Викликаємо відповідний метод з DessertDao
+    public void insert(DessertEntity dessert, SaveCallback result) {
+        dessert.markChanged(); // Зміну треба буде відправити на сервер
+        executeOnCurrentStore(dao -> report(result, dao.insertIfUnique(dessert)));
     }
 
     /**
      * Оновлює інформацію про існуючий десерт в базі даних.
-     * Робить це в окремому потоці.
+     * Робить це в окремому потоці. Якщо нові назва і тип вже зайняті іншим десертом,
+     * зміни не зберігаються, а result дізнається, з яким саме десертом збіг.
      * @param dessert - об'єкт десерту з новими даними.
+     * @param result - куди повідомити результат (викликається в головному потоці).
      */
-    public void update(DessertEntity dessert) { // Параметр тепер теж DessertEntity
-        executorService.execute(() -> dessertDao.updateDessert(dessert)); // Викликаємо відповідний метод з DessertDao
+    public void update(DessertEntity dessert, SaveCallback result) {
+        dessert.markChanged(); // Зміну треба буде відправити на сервер
+        // Перевірка і запис - одна транзакція, тож синхронізація не "вклиниться" між ними (як і в insert)
+        executeOnCurrentStore(dao -> report(result, dao.updateIfUnique(dessert)));
+    }
+
+    // Передає результат збереження в головний потік: duplicate == null - збережено.
+    private void report(SaveCallback result, DessertEntity duplicate) {
+        mainHandler.post(() -> {
+            if (duplicate == null) {
+                result.onSaved();
+            } else {
+                result.onDuplicate(duplicate);
+            }
+        });
     }
 
     /**
@@ -77,7 +208,23 @@ public class DessertViewModel extends AndroidViewModel {
      * @param dessert - об'єкт десерту, який потрібно видалити.
      */
     public void delete(DessertEntity dessert) { // Параметр тепер теж DessertEntity
-        executorService.execute(() -> dessertDao.deleteDessert(dessert)); // Викликаємо відповідний метод з DessertDao
+        // Синхронізований десерт лишається "надгробком", доки сервер не дізнається про видалення
+        executeOnCurrentStore(dao -> dao.deleteOrTombstone(dessert.getId()));
+    }
+
+    // Виконує операцію з базою магазину, який зараз на екрані, в окремому потоці.
+    // Магазин запам'ятовуємо зараз, щоб запис пішов туди, куди дивиться користувач,
+    // і закріплюємо його базу, щоб її не закрили, поки операція чекає в черзі.
+    private void executeOnCurrentStore(Consumer<DessertDao> operation) {
+        String store = currentStore.getValue();
+        AppDatabase db = AppDatabase.acquire(getApplication(), store);
+        executorService.execute(() -> {
+            try {
+                operation.accept(db.dessertDao());
+            } finally {
+                AppDatabase.release(store);
+            }
+        });
     }
 
     /**
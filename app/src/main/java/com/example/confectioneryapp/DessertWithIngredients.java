@@ -0,0 +1,35 @@
+package com.example.confectioneryapp;
+
+import androidx.room.Embedded; // Вкладаємо всі поля десерту "як є"
+import androidx.room.Relation; // Описуємо зв'язок десерт -> рядки рецепту
+
+import java.util.List;
+
+/**
+ * Десерт разом з усіма його інгредієнтами.
+ * Це не окрема таблиця, а лише "збірка" результату запиту.
+ * Room завантажує рядки рецепту для всіх десертів одним запитом з IN (...),
+ * а інгредієнти для всіх рядків - ще одним, а не окремим запитом на кожен десерт.
+ */
+public class DessertWithIngredients {
+
+    @Embedded
+    public DessertEntity dessert;
+
+    /**
+     * Рядки рецепту цього десерту: у кожному - інгредієнт і його кількість.
+     */
+    @Relation(parentColumn = "id", entityColumn = "dessertId", entity = DessertIngredientCrossRef.class)
+    public List<RecipeLine> recipe;
+
+    /**
+     * @return Собівартість десерту за рецептом (0, якщо рецепту немає).
+     */
+    public double getIngredientCost() {
+        double cost = 0;
+        for (RecipeLine line : recipe) {
+            cost += line.getCost();
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.confectioneryapp;
+
+import android.net.Uri;
+import android.util.JsonReader; // Читаємо JSON потоком, не тримаючи всю відповідь в пам'яті
+import android.util.JsonToken;
+import android.util.JsonWriter; // Пишемо JSON одразу в потік запиту
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;  // Розпаковуємо відповідь сервера
+import java.util.zip.GZIPOutputStream; // Стискаємо те, що відправляємо
+
+/**
+ * Справжній клієнт сервера синхронізації поверх HttpURLConnection.
+ * Тіла запитів і відповідей стискаються gzip і пишуться/читаються потоком,
+ * тому навіть початкова синхронізація на десятки тисяч рядків не "роздуває" пам'ять.
+ *
+ * У кожного магазину на сервері свій каталог, тому назва магазину є частиною адреси:
+ * GET  {baseUrl}stores/{магазин}/desserts/changes?cursor=...&limit=...  - зміни з сервера (If-None-Match для ETag)
+ * POST {baseUrl}stores/{магазин}/desserts/batch                          - відправка порції змін
+ * ETag у відповіді changes - версія всього каталогу магазину, а не конкретної сторінки
+ * (контракт описано в DessertSyncApi.pull()).
+ */
+public class HttpDessertSyncApi implements DessertSyncApi {
+
+    private static final int CONNECT_TIMEOUT_MS = 15_000;
+    private static final int READ_TIMEOUT_MS = 60_000;
+
+    private final String baseUrl;
+    private final String storeName;
+
+    /**
+     * @param baseUrl Адреса сервера (наприклад, "http://10.0.2.2:8080/").
+     * @param storeName Магазин, каталог якого синхронізуємо.
+     */
+    public HttpDessertSyncApi(String baseUrl, String storeName) {
+        this.baseUrl = baseUrl;
+        this.storeName = storeName;
+    }
+
+    @Override
+    public Page pull(String cursor, String etag, int limit) throws IOException {
+        Uri.Builder uri = storeUri().appendPath("changes")
+                .appendQueryParameter("limit", String.valueOf(limit));
+        if (cursor != null) {
+            uri.appendQueryParameter("cursor", cursor);
+        }
+        HttpURLConnection connection = open(uri.build().toString());
+        try {
+            if (etag != null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return null; // Нічого нового з минулого разу
+            }
+            checkSuccess(code);
+
+            List<DessertEntity> items = new ArrayList<>();
+            String nextCursor = cursor;
+            boolean hasMore = false;
+            try (JsonReader reader = openReader(connection)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "items":
+                            readDesserts(reader, items);
+                            break;
+                        case "cursor":
+                            nextCursor = reader.nextString();
+                            break;
+                        case "hasMore":
+                            hasMore = reader.nextBoolean();
+                            break;
+                        default:
+                            reader.skipValue(); // Невідомі поля просто пропускаємо
+                    }
+                }
+                reader.endObject();
+            }
+            return new Page(items, nextCursor, connection.getHeaderField("ETag"), hasMore);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public PushResult push(List<DessertEntity> desserts) throws IOException {
+        HttpURLConnection connection = open(storeUri().appendPath("batch").build().toString());
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setChunkedStreamingMode(0); // Не буферизуємо все тіло перед відправкою
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            connection.setRequestProperty("Content-Encoding", "gzip");
+
+            OutputStream out = new GZIPOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+                writer.beginObject().name("items").beginArray();
+                for (DessertEntity dessert : desserts) {
+                    writeDessert(writer, dessert);
+                }
+                writer.endArray().endObject();
+            }
+            checkSuccess(connection.getResponseCode());
+
+            List<DessertEntity> accepted = new ArrayList<>();
+            List<DessertEntity> conflicts = new ArrayList<>();
+            try (JsonReader reader = openReader(connection)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "accepted":
+                            readDesserts(reader, accepted);
+                            break;
+                        case "conflicts":
+                            readDesserts(reader, conflicts);
+                            break;
+                        default:
+                            reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            return new PushResult(accepted, conflicts);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // {baseUrl}stores/{магазин}/desserts - appendPath() сам екранує назву магазину
+    private Uri.Builder storeUri() {
+        return Uri.parse(baseUrl).buildUpon()
+                .appendPath("stores")
+                .appendPath(storeName)
+                .appendPath("desserts");
+    }
+
+    // Відкриває з'єднання зі спільними налаштуваннями (тайм-аути, gzip).
+    private HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        // Якщо вказати Accept-Encoding самим, HttpURLConnection не розпаковує відповідь сам,
+        // тож розпаковуємо в openReader()
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        connection.setRequestProperty("Accept", "application/json");
+        return connection;
+    }
+
+    // Помилки 4xx/5xx перетворюємо на IOException - SyncWorker тоді повторить спробу пізніше.
+    private static void checkSuccess(int code) throws IOException {
+        if (code < 200 || code >= 300) {
+            throw new IOException("Сервер синхронізації відповів кодом " + code);
+        }
+    }
+
+    private static JsonReader openReader(HttpURLConnection connection) throws IOException {
+        InputStream in = new BufferedInputStream(connection.getInputStream());
+        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+            in = new GZIPInputStream(in);
+        }
+        return new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    private static void readDesserts(JsonReader reader, List<DessertEntity> into) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            into.add(readDessert(reader));
+        }
+        reader.endArray();
+    }
+
+    private static DessertEntity readDessert(JsonReader reader) throws IOException {
+        DessertEntity dessert = new DessertEntity();
+        reader.beginObject();
+        try {
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "syncId": dessert.setSyncId(reader.nextString()); break;
+                    case "name": dessert.setName(reader.nextString()); break;
+                    case "type": dessert.setType(reader.nextString()); break;
+                    case "price": dessert.setPrice(reader.nextDouble()); break;
+                    case "weight": dessert.setWeight(reader.nextInt()); break;
+                    case "description": dessert.setDescription(reader.nextString()); break;
+                    case "status": dessert.setStatus(reader.nextString()); break;
+                    case "version": dessert.setVersion(reader.nextLong()); break;
+                    case "updatedAt": dessert.setUpdatedAt(reader.nextLong()); break;
+                    case "deleted": dessert.setDeleted(reader.nextBoolean()); break;
+                    default: reader.skipValue();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Сервер прислав десерт, який не проходить наші перевірки (наприклад, ціна 0)
+            throw new IOException("Некоректний десерт від сервера: " + e.getMessage(), e);
+        }
+        reader.endObject();
+        if (dessert.getSyncId() == null) {
+            throw new IOException("Десерт від сервера без syncId");
+        }
+        return dessert;
+    }
+
+    private static void writeDessert(JsonWriter writer, DessertEntity dessert) throws IOException {
+        writer.beginObject()
+                .name("syncId").value(dessert.getSyncId())
+                .name("name").value(dessert.getName())
+                .name("type").value(dessert.getType())
+                .name("price").value(dessert.getPrice())
+                .name("weight").value(dessert.getWeight())
+                .name("description").value(dessert.getDescription())
+                .name("status").value(dessert.getStatus())
+                .name("version").value(dessert.getVersion()) // Базова версія - для виявлення конфлікту
+                .name("updatedAt").value(dessert.getUpdatedAt())
+                .name("deleted").value(dessert.isDeleted())
+                .endObject();
+    }
+}
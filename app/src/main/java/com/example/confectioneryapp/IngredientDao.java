@@ -0,0 +1,100 @@
+package com.example.confectioneryapp;
+
+import androidx.lifecycle.LiveData; // Щоб дані оновлювалися автоматично в UI
+import androidx.room.Dao;           // Говорить Room, що це Data Access Object
+import androidx.room.Delete;        // Анотація для методу видалення запису
+import androidx.room.Insert;        // Анотація для методу вставки нового запису
+import androidx.room.OnConflictStrategy; // Що робити, якщо такий запис вже є
+import androidx.room.Query;         // Анотація для написання власних SQL-запитів
+import androidx.room.Transaction;   // Щоб кілька запитів виконувалися як одна операція
+import androidx.room.Update;        // Анотація для методу оновлення запису
+
+import java.util.List;
+
+/**
+ * Інтерфейс для роботи з інгредієнтами та рецептами десертів.
+ * Room сам створить необхідний код для реалізації цих методів.
+ */
+@Dao
+public interface IngredientDao {
+
+    /**
+     * Дістає всі інгредієнти, відсортовані за назвою.
+     */
+    @Query("SELECT * FROM ingredients ORDER BY name")
+    LiveData<List<IngredientEntity>> getAllIngredients();
+
+    /**
+     * Додає новий інгредієнт.
+     * @return номер (id), який база призначила інгредієнту.
+     */
+    @Insert
+    long insertIngredient(IngredientEntity ingredient);
+
+    @Update
+    void updateIngredient(IngredientEntity ingredient);
+
+    @Delete
+    void deleteIngredient(IngredientEntity ingredient);
+
+    /**
+     * Додає (або замінює кількість) інгредієнта в рецепті десерту.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertRecipeLine(DessertIngredientCrossRef crossRef);
+
+    /**
+     * Додає одразу кілька рядків рецепту однією транзакцією.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertRecipeLines(List<DessertIngredientCrossRef> crossRefs);
+
+    @Delete
+    void deleteRecipeLine(DessertIngredientCrossRef crossRef);
+
+    /**
+     * Сторінка десертів разом з інгредієнтами, від найновіших до старіших.
+     * @Transaction потрібна, бо Room робить кілька запитів (десерти + рецепти та інгредієнти пачкою через IN),
+     * і всі вони мають бачити однаковий стан бази.
+     * @param beforeId - брати десерти з номером менше за цей (для першої сторінки - Integer.MAX_VALUE,
+     *                   для наступних - id останнього десерту попередньої сторінки).
+     * @param limit - скільки десертів на сторінці.
+     */
+    @Transaction
+    @Query("SELECT * FROM desserts WHERE deleted = 0 AND id < :beforeId ORDER BY id DESC LIMIT :limit")
+    List<DessertWithIngredients> getDessertsWithIngredients(int beforeId, int limit);
+
+    /**
+     * Один десерт з інгредієнтами (наприклад, для екрану деталей).
+     * @param dessertId - номер десерту.
+     * @return десерт з інгредієнтами або null, якщо такого немає.
+     */
+    @Transaction
+    @Query("SELECT * FROM desserts WHERE id = :dessertId LIMIT 1")
+    DessertWithIngredients getDessertWithIngredients(int dessertId);
+
+    /**
+     * Десерти, в яких є інгредієнт з вказаним алергеном.
+     * @param allergen - алерген, наприклад "глютен".
+     */
+    @Transaction
+    @Query("SELECT * FROM desserts WHERE deleted = 0 AND id IN ("
+            + "SELECT di.dessertId FROM dessert_ingredients di "
+            + "JOIN ingredients i ON i.id = di.ingredientId "
+            + "WHERE i.allergen = :allergen) ORDER BY id DESC")
+    List<DessertWithIngredients> getDessertsWithAllergen(String allergen);
+
+    /**
+     * Собівартість кожного десерту: сума (ціна інгредієнта * кількість).
+     * Рахує сама база одним запитом - не треба тягнути всі інгредієнти в пам'ять.
+     * LEFT JOIN, щоб десерти без рецепту теж потрапили у список (з нульовою собівартістю).
+     */
+    @Query("SELECT d.id AS dessertId, d.name AS name, d.price AS price, "
+            + "COALESCE(SUM(i.pricePerUnit * di.quantity), 0) AS ingredientCost "
+            + "FROM desserts d "
+            + "LEFT JOIN dessert_ingredients di ON di.dessertId = d.id "
+            + "LEFT JOIN ingredients i ON i.id = di.ingredientId "
+            + "WHERE d.deleted = 0 "
+            + "GROUP BY d.id ORDER BY d.id DESC")
+    LiveData<List<DessertCost>> getDessertCosts();
+}
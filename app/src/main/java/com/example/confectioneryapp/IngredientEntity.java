@@ -0,0 +1,96 @@
+package com.example.confectioneryapp;
+
+import androidx.annotation.NonNull; // Це означає "не можна залишати порожнім" (null)
+import androidx.room.Entity;       // Ця штука каже, що клас буде табличкою в базі даних
+import androidx.room.Index;        // Індекс, щоб швидко шукати інгредієнт за назвою
+import androidx.room.PrimaryKey;   // Унікальний ключ для кожного інгредієнта
+
+/**
+ * Це "Інгредієнт" - з чого готуються наші десерти (борошно, масло, цукор...).
+ * У базі даних це окрема таблиця "ingredients".
+ * Один інгредієнт може використовуватися в багатьох десертах,
+ * тому зв'язок з десертами зберігається в окремій таблиці (DessertIngredientCrossRef).
+ */
+@Entity(tableName = "ingredients",
+        indices = {@Index(value = {"name"}, unique = true)}) // Два інгредієнти з однаковою назвою нам не потрібні
+public class IngredientEntity {
+
+    /**
+     * Номер інгредієнта в базі. База сама призначає його по порядку.
+     */
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+
+    /**
+     * Назва інгредієнта, наприклад, "Борошно" або "Вершкове масло".
+     */
+    @NonNull
+    private String name;
+
+    /**
+     * Одиниця виміру: "г", "мл", "шт" тощо.
+     */
+    @NonNull
+    private String unit = "г";
+
+    /**
+     * Скільки коштує одна одиниця інгредієнта (наприклад, 1 грам).
+     * Саме з цього ми рахуємо собівартість десерту.
+     */
+    private double pricePerUnit;
+
+    /**
+     * Алерген, якщо він є (наприклад, "глютен", "лактоза", "горіхи").
+     * Якщо інгредієнт безпечний - залишаємо null.
+     */
+    private String allergen;
+
+    public int getId() {
+        return id; // Дізнатися номер інгредієнта
+    }
+
+    public void setId(int id) {
+        this.id = id; // Встановити номер (зазвичай це робить база даних)
+    }
+
+    @NonNull
+    public String getName() {
+        return name; // Дізнатися назву
+    }
+
+    public void setName(@NonNull String name) {
+        this.name = name; // Змінити назву
+    }
+
+    @NonNull
+    public String getUnit() {
+        return unit; // Дізнатися одиницю виміру
+    }
+
+    public void setUnit(@NonNull String unit) {
+        this.unit = unit; // Змінити одиницю виміру
+    }
+
+    public double getPricePerUnit() {
+        return pricePerUnit; // Дізнатися ціну за одиницю
+    }
+
+    /**
+     * Встановлюємо ціну за одиницю. Від'ємною вона бути не може,
+     * а от нульовою - так (наприклад, вода).
+     */
+    public void setPricePerUnit(double pricePerUnit) {
+        if (pricePerUnit < 0) {
+            throw new IllegalArgumentException("Ціна інгредієнта не може бути від'ємною");
+        }
+        this.pricePerUnit = pricePerUnit;
+    }
+
+    public String getAllergen() {
+        return allergen; // Дізнатися алерген
+    }
+
+    public void setAllergen(String allergen) {
+        this.allergen = allergen; // Змінити алерген
+    }
+}
@@ -1,15 +1,22 @@
 package com.example.confectioneryapp;
 
 import android.os.Bundle; // Для збереження стану Activity
+import android.os.Parcelable; // Збережене положення прокрутки списку
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity; // Базовий клас для Activity з підтримкою App Bar
+import androidx.lifecycle.Lifecycle; // Щоб дізнатися, чи екран зараз видно
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModelProvider; // Допомагає отримати ViewModel
 import androidx.recyclerview.widget.LinearLayoutManager; // Розташовує елементи списку один за одним
 import androidx.recyclerview.widget.RecyclerView; // Сам список для відображення даних
 // import com.google.android.material.floatingactionbutton.FloatingActionButton; // Цей імпорт більше не потрібен
 import com.google.android.material.button.MaterialButton; // ДОДАЄМО ЦЕЙ ІМПОРТ ДЛЯ НОВОЇ КНОПКИ
+import android.widget.EditText; // Поле для введення назви нового магазину
 import android.widget.Toast; // Для показу повідомлень користувачу
 
 import java.util.ArrayList; // Для створення порожнього списку на початку
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Головний екран нашого додатку "Кондитерська".
@@ -18,10 +25,24 @@ import java.util.ArrayList; // Для створення порожнього с
  */
 public class MainActivity extends AppCompatActivity {
 
+    // Коли до кінця списку лишається стільки рядків, підвантажуємо наступну порцію
+    static final int LOAD_MORE_THRESHOLD = 20;
+
     // Наша ViewModel, яка керує даними про десерти.
     private DessertViewModel dessertViewModel;
     // Наш Адаптер, який "знає", як відобразити кожен десерт у списку.
     private DessertAdapter dessertAdapter;
+    // Список на екрані - потрібен, щоб звільнити його запасні рядки при нестачі пам'яті.
+    private RecyclerView recyclerView;
+    private LinearLayoutManager layoutManager;
+
+    // "Живий" список, на який ми підписані (null - звільнили, поки екран не видно).
+    private LiveData<List<DessertEntity>> desserts;
+    // Де був користувач у списку перед звільненням - туди ж повертаємо після перезавантаження.
+    private Parcelable releasedListState;
+
+    // Сигнали системи про нестачу пам'яті. Можуть прийти не з головного потоку.
+    private final MemoryBudgetManager.Trimmable trimmable = level -> runOnUiThread(() -> onMemoryPressure(level));
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -30,9 +51,10 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_main);
 
         // Знаходимо наш RecyclerView в макеті
-        RecyclerView recyclerView = findViewById(R.id.recyclerView);
+        recyclerView = findViewById(R.id.recyclerView);
         // Кажемо йому, як розташовувати елементи (вертикально, один за одним)
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
         recyclerView.setHasFixedSize(true); // Оптимізація: якщо розмір елементів не змінюється
 
         // Створюємо наш адаптер для десертів, поки що з порожнім списком
@@ -43,21 +65,37 @@ public class MainActivity extends AppCompatActivity {
         // Отримуємо екземпляр нашої DessertViewModel.
         dessertViewModel = new ViewModelProvider(this).get(DessertViewModel.class);
 
-        // Тепер "підписуємося" на зміни у списку всіх десертів, який є у ViewModel.
-        // Коли дані в базі зміняться, ViewModel оновить LiveData, а цей код автоматично викличеться.
-        dessertViewModel.getAllDesserts().observe(this, dessertEntities -> {
-            // Отримали новий список dessertEntities, передаємо його в адаптер.
-            dessertAdapter.setDessertList(dessertEntities);
+        // У пам'яті тримаємо лише "вікно" найновіших десертів; догортали майже до кінця - просимо більше
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition()
+                        >= dessertAdapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    dessertViewModel.loadMore();
+                }
+            }
+        });
+        MemoryBudgetManager.getInstance().register(trimmable);
+
+        observeDesserts();
+
+        // Кнопка зверху показує поточний магазин і дозволяє перемкнутися на інший
+        MaterialButton buttonSwitchStore = findViewById(R.id.buttonSwitchStore);
+        dessertViewModel.getCurrentStore().observe(this, store -> {
+            buttonSwitchStore.setText(getString(R.string.store_button, store));
+            // Кожен магазин синхронізується з сервером у фоні (якщо вже заплановано - нічого не зміниться)
+            SyncWorker.schedule(getApplicationContext(), store);
         });
+        buttonSwitchStore.setOnClickListener(view -> showStorePicker());
 
         // Знаходимо нашу кнопку "Додати десерт" (MaterialButton)
         MaterialButton buttonAddDessert = findViewById(R.id.buttonAddDessert);
         // Встановлюємо обробник натискання на цю кнопку
         buttonAddDessert.setOnClickListener(view -> {
             // Коли кнопку натиснуто, показуємо наш діалог додавання десерту
-            AddDessertDialog.show(this, newDessert -> {
+            AddDessertDialog.show(this, (newDessert, result) -> {
                 // Цей код (callback) виконається, коли користувач введе дані в діалозі і натисне "Додати".
-                dessertViewModel.insert(newDessert); // Кажемо ViewModel додати цей десерт в базу
+                dessertViewModel.insert(newDessert, result); // Кажемо ViewModel додати цей десерт в базу
             }, null); // Передаємо null, бо це створення нового десерту, а не редагування існуючого.
         });
 
@@ -68,10 +106,10 @@ public class MainActivity extends AppCompatActivity {
             final int dessertId = dessert.getId();
 
             // Показуємо діалог, передаючи в нього поточний десерт для редагування.
-            AddDessertDialog.show(this, updatedDessert -> {
+            AddDessertDialog.show(this, (updatedDessert, result) -> {
                 // Цей код (callback) виконається, коли користувач змінить дані в діалозі і натисне "Оновити".
                 updatedDessert.setId(dessertId); // Важливо! Встановлюємо ID для оновлення правильного запису в базі.
-                dessertViewModel.update(updatedDessert); // Кажемо ViewModel оновити цей десерт.
+                dessertViewModel.update(updatedDessert, result); // Кажемо ViewModel оновити цей десерт.
             }, dessert); // Передаємо об'єкт десерту, який хочемо редагувати.
         });
 
@@ -93,4 +131,139 @@ public class MainActivity extends AppCompatActivity {
                     .show(); // Показуємо діалог
         });
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (desserts == null) {
+            observeDesserts(); // Список звільняли, поки екран був схований, - читаємо його знову
+        }
+    }
+
+    /**
+     * "Підписуємося" на зміни у списку всіх десертів, який є у ViewModel.
+     */
+    private void observeDesserts() {
+        desserts = dessertViewModel.getAllDesserts();
+        // Коли дані в базі зміняться, ViewModel оновить LiveData, а цей код автоматично викличеться.
+        desserts.observe(this, dessertEntities -> {
+            // Отримали новий список dessertEntities, передаємо його в адаптер.
+            dessertAdapter.setDessertList(dessertEntities);
+            if (releasedListState != null) {
+                layoutManager.onRestoreInstanceState(releasedListState); // Повертаємось туди, де були
+                releasedListState = null;
+            }
+        });
+    }
+
+    /**
+     * Вирішує, що звільнити, за рівнем сигналу і тим, чи екран зараз видно.
+     * Сам рівень цього не гарантує: onLowMemory() (рівень COMPLETE) приходить і тоді,
+     * коли користувач дивиться на список, - порожній екран під пальцем тут гірший за нестачу пам'яті.
+     */
+    private void onMemoryPressure(int level) {
+        if (isDestroyed()) {
+            return;
+        }
+        boolean visible = getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED);
+        if (level >= TRIM_MEMORY_UI_HIDDEN && !visible) {
+            releaseList();
+        } else if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            // Екран видно (або сигнал "випередив" onStop()) - лишаємо хоча б видимі рядки
+            shrinkToVisible();
+        }
+    }
+
+    /**
+     * Екран не видно - відпускаємо все, що тримає список: підписку (без неї ViewModel
+     * і Room забудуть рядки), дані в адаптері та запасні рядки RecyclerView.
+     * Після повернення onStart() завантажить список знову.
+     */
+    private void releaseList() {
+        if (desserts == null) {
+            return;
+        }
+        releasedListState = layoutManager.onSaveInstanceState();
+        desserts.removeObservers(this);
+        desserts = null;
+        dessertViewModel.releaseList(); // Інакше ViewModel і далі триматиме старий список
+        dessertAdapter.setDessertList(new ArrayList<>());
+        recyclerView.getRecycledViewPool().clear();
+    }
+
+    /**
+     * Пам'яті критично бракує, а користувач дивиться на список: лишаємо лише рядки
+     * до видимих (з запасом на підвантаження), щоб нічого не "стрибнуло" під пальцем.
+     */
+    private void shrinkToVisible() {
+        dessertViewModel.shrinkWindow(layoutManager.findLastVisibleItemPosition() + 1 + LOAD_MORE_THRESHOLD);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        MemoryBudgetManager.getInstance().unregister(trimmable); // Щоб менеджер не тримав знищений екран
+    }
+
+    /**
+     * Показує список магазинів. Вибір магазину одразу перемикає список десертів на його базу.
+     * Останні пункти - створити новий магазин або подивитися підсумок по всіх.
+     */
+    private void showStorePicker() {
+        List<String> stores = AppDatabase.getStoreNames(this);
+        List<String> items = new ArrayList<>(stores);
+        items.add(getString(R.string.new_store_item));
+        items.add(getString(R.string.store_summary_item));
+
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle(R.string.choose_store_title)
+                .setItems(items.toArray(new String[0]), (dialog, which) -> {
+                    if (which < stores.size()) {
+                        dessertViewModel.switchStore(stores.get(which));
+                    } else if (which == stores.size()) {
+                        showNewStoreDialog();
+                    } else {
+                        showStoreSummaries();
+                    }
+                })
+                .show();
+    }
+
+    /**
+     * Питає назву нового магазину і перемикається на нього (файл бази створиться автоматично).
+     */
+    private void showNewStoreDialog() {
+        EditText input = new EditText(this);
+        input.setHint(R.string.new_store_hint);
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle(R.string.new_store_item)
+                .setView(input)
+                .setPositiveButton("Створити", (dialog, which) -> {
+                    try {
+                        dessertViewModel.switchStore(input.getText().toString().trim());
+                    } catch (IllegalArgumentException e) {
+                        Toast.makeText(this, e.getMessage(), Toast.LENGTH_LONG).show();
+                    }
+                })
+                .setNegativeButton("Скасувати", null)
+                .show();
+    }
+
+    /**
+     * Показує кількість десертів і суму цін по кожному магазину.
+     */
+    private void showStoreSummaries() {
+        dessertViewModel.loadStoreSummaries().observe(this, summaries -> {
+            StringBuilder message = new StringBuilder();
+            for (StoreSummary summary : summaries) {
+                message.append(String.format(Locale.getDefault(), "%s: %d шт., %.2f грн%n",
+                        summary.getStoreName(), summary.getDessertCount(), summary.getTotalPrice()));
+            }
+            new androidx.appcompat.app.AlertDialog.Builder(this)
+                    .setTitle(R.string.store_summary_item)
+                    .setMessage(message.toString())
+                    .setPositiveButton("OK", null)
+                    .show();
+        });
+    }
+}
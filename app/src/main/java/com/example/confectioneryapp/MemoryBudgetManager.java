@@ -0,0 +1,96 @@
+package com.example.confectioneryapp;
+
+import android.content.ComponentCallbacks2; // Через нього система каже, що пам'яті бракує
+import android.content.res.Configuration;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Єдине місце, яке слухає сигнали системи про нестачу пам'яті (onTrimMemory)
+ * і розсилає їх частинам додатка, що тримають щось "про запас".
+ * Сам менеджер звільняє те, що належить базі даних:
+ * кеш сторінок SQLite і з'єднання з базами неактивних магазинів
+ * (поточний магазин і ті, що зараз закріплені через AppDatabase.acquire, не закриваються).
+ * Реєструється один раз у ConfectioneryApp.
+ */
+public class MemoryBudgetManager implements ComponentCallbacks2 {
+
+    /**
+     * Все, що вміє "схуднути" на вимогу. Рівень - одна з констант ComponentCallbacks2.TRIM_MEMORY_*:
+     * чим більше число, тим сильніше треба звільняти пам'ять.
+     * Чи видно зараз екран, рівень не каже (див. onLowMemory()) - це перевіряє сам підписник.
+     */
+    public interface Trimmable {
+        void onTrimMemory(int level);
+    }
+
+    private static final MemoryBudgetManager INSTANCE = new MemoryBudgetManager();
+
+    // Підписники. CopyOnWriteArrayList - бо підписуються з головного потоку,
+    // а розсилка може прийти, поки хтось якраз відписується.
+    private final List<Trimmable> trimmables = new CopyOnWriteArrayList<>();
+
+    // Останній рівень, який ми отримали (0 - сигналів ще не було)
+    private volatile int lastTrimLevel;
+
+    private MemoryBudgetManager() {
+    }
+
+    public static MemoryBudgetManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Підписатися на сигнали про нестачу пам'яті.
+     * Обов'язково відписатися (unregister), коли об'єкт більше не потрібен, - інакше буде витік.
+     */
+    public void register(Trimmable trimmable) {
+        trimmables.add(trimmable);
+    }
+
+    public void unregister(Trimmable trimmable) {
+        trimmables.remove(trimmable);
+    }
+
+    /**
+     * @return Останній рівень нестачі пам'яті, про який повідомила система.
+     */
+    public int getLastTrimLevel() {
+        return lastTrimLevel;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        lastTrimLevel = level;
+        for (Trimmable trimmable : trimmables) {
+            trimmable.onTrimMemory(level);
+        }
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            // Користувач нас не бачить - бази інших магазинів зараз не потрібні.
+            // Ті, з якими ще працюють (синхронізація, запис у черзі), закриються самі після release.
+            AppDatabase.closeIdleStores();
+        }
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            // Віддаємо системі кеш сторінок SQLite, який не використовується прямо зараз
+            SQLiteDatabase.releaseMemory();
+        }
+    }
+
+    /**
+     * Старий сигнал "пам'яті зовсім немає" - обробляємо як найсильніший рівень.
+     * Він приходить і тоді, коли додаток на екрані, тож видимий список тут не звільняють (див. MainActivity).
+     */
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // Нам не потрібно, але метод обов'язковий для ComponentCallbacks2
+    }
+}
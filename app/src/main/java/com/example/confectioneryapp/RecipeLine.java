@@ -0,0 +1,24 @@
+package com.example.confectioneryapp;
+
+import androidx.room.Embedded; // Вкладаємо всі поля рядка рецепту "як є"
+import androidx.room.Relation; // Підтягуємо сам інгредієнт за його номером
+
+/**
+ * Один рядок рецепту: скільки інгредієнта потрібно і який це інгредієнт.
+ * Кількість і інгредієнт лежать поруч, тож зіставляти їх вручну не треба.
+ */
+public class RecipeLine {
+
+    @Embedded
+    public DessertIngredientCrossRef line;
+
+    @Relation(parentColumn = "ingredientId", entityColumn = "id")
+    public IngredientEntity ingredient;
+
+    /**
+     * @return Вартість цього рядка: ціна за одиницю * кількість.
+     */
+    public double getCost() {
+        return ingredient.getPricePerUnit() * line.getQuantity();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.confectioneryapp;
+
+/**
+ * Короткий підсумок по одному магазину: скільки в ньому десертів
+ * і яка їхня сумарна ціна. Рахується в AppDatabase.loadStoreSummaries().
+ */
+public class StoreSummary {
+
+    private final String storeName;
+    private final int dessertCount;
+    private final double totalPrice;
+
+    public StoreSummary(String storeName, int dessertCount, double totalPrice) {
+        this.storeName = storeName;
+        this.dessertCount = dessertCount;
+        this.totalPrice = totalPrice;
+    }
+
+    public String getStoreName() {
+        return storeName; // Назва магазину
+    }
+
+    public int getDessertCount() {
+        return dessertCount; // Кількість десертів у магазині
+    }
+
+    public double getTotalPrice() {
+        return totalPrice; // Сума цін усіх десертів
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.confectioneryapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;              // Як збільшувати паузу між повторними спробами
+import androidx.work.Constraints;                // Умови запуску (наприклад, є інтернет)
+import androidx.work.Data;                       // Вхідні дані для задачі
+import androidx.work.ExistingPeriodicWorkPolicy; // Що робити, якщо така задача вже запланована
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;                // Планувальник фонових задач Android
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фонова задача WorkManager, яка синхронізує десерти одного магазину з сервером.
+ * WorkManager сам запускає її періодично, лише коли є інтернет,
+ * і повторює з дедалі більшою паузою, якщо сервер був недоступний.
+ */
+public class SyncWorker extends Worker {
+
+    // Ключ, під яким передаємо назву магазину в задачу
+    static final String KEY_STORE = "store";
+
+    private static final String PREFS_NAME = "sync";
+
+    // Після стількох невдалих спроб поспіль здаємося до наступного планового запуску
+    private static final int MAX_ATTEMPTS = 5;
+
+    public SyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Де зберігаються курсори та ETag синхронізації всіх магазинів.
+     */
+    static SharedPreferences syncPrefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Планує періодичну синхронізацію магазину (раз на годину, лише з інтернетом).
+     * Якщо задача для цього магазину вже запланована, нічого не змінюємо.
+     * Якщо збірка не знає адреси сервера (реліз без -PsyncBaseUrl), нічого не плануємо.
+     * @param context Контекст додатка.
+     * @param storeName Назва магазину.
+     */
+    public static void schedule(Context context, String storeName) {
+        if (BuildConfig.SYNC_BASE_URL.isEmpty()) {
+            return;
+        }
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(SyncWorker.class, 1, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                // 30 с, 1 хв, 2 хв, ... - не "засипаємо" сервер запитами, якщо він лежить
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .setInputData(new Data.Builder().putString(KEY_STORE, storeName).build())
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork("sync-" + storeName, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Сама робота. WorkManager вже викликає її у фоновому потоці.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        String storeName = getInputData().getString(KEY_STORE);
+        if (storeName == null) {
+            return Result.failure();
+        }
+        // Закріплюємо базу магазину на час синхронізації: її не закриє ні LRU, ні нестача пам'яті,
+        // і порядок "останніх використаних" магазинів користувача не зміниться
+        AppDatabase db = AppDatabase.acquire(getApplicationContext(), storeName);
+        try {
+            new DessertSyncer(db,
+                    new HttpDessertSyncApi(BuildConfig.SYNC_BASE_URL, storeName),
+                    syncPrefs(getApplicationContext()),
+                    storeName)
+                    .sync();
+            return Result.success();
+        } catch (IOException e) {
+            // Немає зв'язку або сервер повернув помилку - спробуємо пізніше
+            return getRunAttemptCount() < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+        } finally {
+            AppDatabase.release(storeName);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.confectioneryapp;
+
+import static com.example.confectioneryapp.TestUtils.dessert;
+import static com.example.confectioneryapp.TestUtils.onBackground;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Перевіряє роботу з кількома магазинами в AppDatabase:
+ * ліміт відкритих баз, закріплення (acquire/release) і швидкість перемикання.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AppDatabaseStoreTest {
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        AppDatabase.closeAllStores();
+    }
+
+    @After
+    public void tearDown() {
+        AppDatabase.closeAllStores();
+    }
+
+    @Test
+    public void evictedStoresAreClosedAndOpenOnesStayUsable() throws Exception {
+        List<AppDatabase> opened = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            AppDatabase.switchStore(context, "shop" + i);
+            AppDatabase db = AppDatabase.getInstance(context);
+            onBackground(() -> db.dessertDao().getDessertById(1)); // Справді відкриваємо файл
+            opened.add(db);
+            assertTrue(AppDatabase.getOpenStoreCount() <= AppDatabase.MAX_OPEN_STORES);
+        }
+
+        // Витіснені екземпляри справді закриті, а не просто забуті в карті
+        int stillOpen = 0;
+        for (int i = 0; i < opened.size(); i++) {
+            boolean recent = i >= opened.size() - AppDatabase.MAX_OPEN_STORES;
+            assertEquals("shop" + i, recent, opened.get(i).isOpen());
+            stillOpen += opened.get(i).isOpen() ? 1 : 0;
+        }
+        assertEquals(AppDatabase.MAX_OPEN_STORES, stillOpen);
+        assertEquals(AppDatabase.MAX_OPEN_STORES, AppDatabase.getOpenStoreCount());
+    }
+
+    @Test
+    public void sameInstanceUntilClosedEvenBeforeFirstQuery() {
+        AppDatabase.switchStore(context, "shopA");
+        // Room.isOpen() ще false, але другий екземпляр для того ж файлу створюватися не повинен
+        assertSame(AppDatabase.getInstance(context, "shopA"), AppDatabase.getInstance(context, "shopA"));
+        assertSame(AppDatabase.getInstance(context, "shopA"), AppDatabase.getInstance(context));
+    }
+
+    @Test
+    public void currentStoreIsNeverEvicted() throws Exception {
+        AppDatabase.switchStore(context, "shopA");
+        AppDatabase current = AppDatabase.getInstance(context);
+        // Хтось інший (наприклад, підсумки чи фонова задача) звертається до купи інших магазинів
+        for (int i = 0; i < 5; i++) {
+            AppDatabase.getInstance(context, "other" + i);
+        }
+        assertSame(current, AppDatabase.getInstance(context, "shopA"));
+        onBackground(() -> current.dessertDao().getDessertById(1)); // Не кидає "база закрита"
+    }
+
+    @Test
+    public void pinnedStoreSurvivesEvictionAndClosesOnRelease() throws Exception {
+        AppDatabase.switchStore(context, "shopA");
+        AppDatabase pinned = AppDatabase.acquire(context, "sync-only");
+        assertEquals(2, AppDatabase.getOpenStoreCount());
+
+        for (int i = 0; i < 5; i++) {
+            AppDatabase.switchStore(context, "shop" + i);
+        }
+        AppDatabase.closeIdleStores();
+        onBackground(() -> pinned.dessertDao().getDessertById(1)); // Досі відкрита
+
+        // Фонова задача не "витісняє" магазини користувача: після release її база закривається
+        AppDatabase.release("sync-only");
+        assertFalse(pinned.isOpen());
+        assertEquals(1, AppDatabase.getOpenStoreCount());
+        assertNotSame(pinned, AppDatabase.acquire(context, "sync-only"));
+        AppDatabase.release("sync-only");
+    }
+
+    @Test
+    public void acquireReusesInstanceOpenedByScreen() {
+        AppDatabase.switchStore(context, "shopA");
+        AppDatabase screen = AppDatabase.getInstance(context);
+        assertSame(screen, AppDatabase.acquire(context, "shopA"));
+        AppDatabase.release("shopA");
+        assertSame(screen, AppDatabase.getInstance(context));
+    }
+
+    @Test
+    public void selectedStoreSurvivesProcessRestart() {
+        AppDatabase.switchStore(context, "shopB");
+        AppDatabase.closeAllStores(); // Процес "помер": статичні поля скинуто
+
+        AppDatabase.restoreCurrentStore(context);
+
+        assertEquals("shopB", AppDatabase.getCurrentStore());
+    }
+
+    @Test
+    public void switchingToOpenStoreReturnsDataFast() throws Exception {
+        String[] stores = {"shopA", "shopB", "shopC"};
+        for (String store : stores) {
+            AppDatabase.switchStore(context, store);
+            AppDatabase db = AppDatabase.getInstance(context);
+            onBackground(() -> db.dessertDao().insertDessert(dessert("Еклер " + store, "тістечко", 40)));
+        }
+
+        // Рахуємо весь шлях: перемкнутися і дочекатися першого запиту до даних нового магазину
+        int switches = 300;
+        long start = System.nanoTime();
+        for (int i = 0; i < switches; i++) {
+            String store = stores[i % stores.length];
+            AppDatabase.switchStore(context, store);
+            AppDatabase db = AppDatabase.getInstance(context);
+            String name = onBackground(() -> db.dessertDao().getDessertById(1).getName());
+            assertEquals("Еклер " + store, name);
+        }
+        double averageMs = (System.nanoTime() - start) / 1_000_000.0 / switches;
+
+        // Уже відкриті бази не перевідкриваються, тож перемикання - це лише один запит до відкритого файлу
+        assertTrue("Середнє перемикання до перших даних " + averageMs + " мс", averageMs < 10.0);
+        assertEquals(stores.length, AppDatabase.getOpenStoreCount());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.confectioneryapp;
+
+import static com.example.confectioneryapp.TestUtils.dessert;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Перевіряє, що десерт з тією ж назвою і типом не можна додати двічі.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DessertDaoTest {
+
+    private AppDatabase db;
+    private DessertDao dao;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        dao = db.dessertDao();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void insertIfUniqueRejectsNormalizedDuplicate() {
+        assertNull(dao.insertIfUnique(dessert("Торт Наполеон", "Торт", 100)));
+
+        DessertEntity existing = dao.insertIfUnique(dessert("  торт   наполеон ", "ТОРТ", 150));
+
+        assertNotNull(existing);
+        assertEquals(1, dao.getDessertCount());
+        assertEquals(100, dao.getDessertById(existing.getId()).getPrice(), 0.001); // Нічого не перезаписано
+    }
+
+    @Test
+    public void updateIfUniqueRejectsRenameOntoAnotherDessert() {
+        dao.insertIfUnique(dessert("Еклер", "тістечко", 40));
+        DessertEntity other = dessert("Корзинка", "тістечко", 35);
+        dao.insertIfUnique(other);
+
+        other.setName("Еклер");
+        assertNotNull(dao.updateIfUnique(other));
+        assertEquals("Корзинка", dao.getDessertById(other.getId()).getName());
+
+        // Власна назва самому собі не заважає
+        other.setName("Корзинка");
+        other.setPrice(38);
+        assertNull(dao.updateIfUnique(other));
+        assertEquals(38, dao.getDessertById(other.getId()).getPrice(), 0.001);
+    }
+
+    @Test
+    public void editFromDialogKeepsSyncFieldsChangedMeanwhile() {
+        DessertEntity original = dessert("Еклер", "тістечко", 40);
+        dao.insertIfUnique(original);
+        // Діалог відкрито, а тим часом SyncWorker відправив десерт на сервер
+        dao.assignSyncId(original.getId(), "s1");
+        dao.markSynced(original.getId(), 3, original.getUpdatedAt());
+
+        // Діалог будує новий об'єкт без syncId і version
+        DessertEntity edited = dessert("Еклер", "тістечко", 45);
+        edited.setId(original.getId());
+        edited.markChanged();
+        assertNull(dao.updateIfUnique(edited));
+
+        DessertEntity saved = dao.getDessertById(original.getId());
+        assertEquals(45, saved.getPrice(), 0.001);
+        assertEquals("s1", saved.getSyncId());   // Інакше наступна відправка створила б дубль на сервері
+        assertEquals(3, saved.getVersion());     // Інакше - фальшивий конфлікт
+        assertTrue(saved.isDirty());
+    }
+
+    @Test
+    public void deleteOfUnsyncedDessertRemovesRow() {
+        DessertEntity eclair = dessert("Еклер", "тістечко", 40);
+        dao.insertIfUnique(eclair);
+
+        dao.deleteOrTombstone(eclair.getId());
+
+        assertNull(dao.getDessertById(eclair.getId())); // Сервер про нього не знав - надгробок не потрібен
+    }
+
+    @Test
+    public void deleteOfSyncedDessertLeavesTombstoneAndFreesName() {
+        DessertEntity eclair = dessert("Еклер", "тістечко", 40);
+        dao.insertIfUnique(eclair);
+        dao.assignSyncId(eclair.getId(), "s1");
+        dao.markSynced(eclair.getId(), 2, eclair.getUpdatedAt());
+
+        dao.deleteOrTombstone(eclair.getId());
+
+        DessertEntity tombstone = dao.getDessertById(eclair.getId());
+        assertTrue(tombstone.isDeleted() && tombstone.isDirty());
+        assertEquals(2, tombstone.getVersion()); // Сервер має знати, яку версію ми видалили
+        assertEquals(0, dao.getDessertCount());
+        // Такий самий десерт можна одразу додати знову
+        assertNull(dao.insertIfUnique(dessert("Еклер", "тістечко", 42)));
+        assertEquals(1, dao.getDessertCount());
+    }
+
+    @Test
+    public void upsertUpdatesExistingRowOnReimport() {
+        dao.upsertDessert(dessert("Макарон", "печиво", 30));
+        dao.upsertDessert(dessert("макарон", "Печиво", 32));
+
+        assertEquals(1, dao.getDessertCount());
+        assertEquals(32, dao.findByNormalizedNameAndType("макарон", "печиво").getPrice(), 0.001);
+    }
+}
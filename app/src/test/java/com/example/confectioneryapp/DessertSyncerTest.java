@@ -0,0 +1,310 @@
+package com.example.confectioneryapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Тести DessertSyncer на базі в пам'яті та FakeSyncServer.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DessertSyncerTest {
+
+    private Context context;
+    private SharedPreferences prefs;
+    private FakeSyncServer server;
+    private final List<AppDatabase> databases = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        prefs = context.getSharedPreferences("sync-test", Context.MODE_PRIVATE);
+        prefs.edit().clear().commit();
+        server = new FakeSyncServer();
+    }
+
+    @After
+    public void tearDown() {
+        for (AppDatabase db : databases) {
+            db.close();
+        }
+    }
+
+    @Test
+    public void pushSendsDirtyRowsAndMarksThemSynced() throws Exception {
+        AppDatabase db = newDatabase();
+        DessertEntity local = localDessert("Наполеон", "торт");
+        db.dessertDao().insertDessert(local);
+
+        syncer(db, "shopA").sync();
+
+        List<DessertEntity> remote = server.desserts("shopA");
+        assertEquals(1, remote.size());
+        assertEquals("Наполеон", remote.get(0).getName());
+        DessertEntity synced = db.dessertDao().getDessertsBySyncIds(listOf(remote.get(0).getSyncId())).get(0);
+        assertFalse(synced.isDirty());
+        assertEquals(1, synced.getVersion());
+    }
+
+    @Test
+    public void pullInsertsRemoteRowsAndSecondPullIsNotModified() throws Exception {
+        AppDatabase db = newDatabase();
+        server.putRemote("shopA", FakeSyncServer.dessert("s1", "Еклер", "тістечко", 40, 3));
+
+        syncer(db, "shopA").sync();
+        assertEquals(1, db.dessertDao().getDessertCount());
+
+        int requests = server.pullRequests;
+        syncer(db, "shopA").sync();
+        assertEquals("Актуальний ETag - сервер відповідає 304 з першого запиту", requests + 1, server.pullRequests);
+        assertEquals(1, db.dessertDao().getDessertCount());
+    }
+
+    @Test
+    public void etagFromLastPageIsValidWithAdvancedCursor() throws Exception {
+        AppDatabase db = newDatabase();
+        for (int i = 0; i < DessertSyncer.BATCH_SIZE + 10; i++) {
+            server.putRemote("shopA", FakeSyncServer.dessert("s" + i, "Десерт " + i, "торт", 40, 1));
+        }
+        syncer(db, "shopA").sync(); // Дві сторінки: курсор пішов далі, ETag - з останньої
+
+        // Нічого не змінилось - один запит і 304, хоч курсор уже не той, з яким видали перший ETag
+        int requests = server.pullRequests;
+        syncer(db, "shopA").sync();
+        assertEquals(requests + 1, server.pullRequests);
+
+        // Змінився каталог - старий ETag більше не збігається, і зміну отримуємо
+        server.putRemote("shopA", FakeSyncServer.dessert("s3", "Десерт 3", "торт", 55, 2));
+        syncer(db, "shopA").sync();
+        assertEquals(55, db.dessertDao().getDessertsBySyncIds(listOf("s3")).get(0).getPrice(), 0.001);
+    }
+
+    @Test
+    public void editDuringPushIsKeptAndPushedWithNewBaseVersion() throws Exception {
+        AppDatabase db = newDatabase();
+        DessertEntity local = localDessert("Наполеон", "торт");
+        local.setId((int) db.dessertDao().insertDessert(local));
+
+        // Користувач зберігає нову ціну, поки порція "летить" на сервер
+        DessertSyncApi serverApi = server.api("shopA");
+        DessertSyncApi editWhilePushing = new DessertSyncApi() {
+            @Override
+            public Page pull(String cursor, String etag, int limit) throws IOException {
+                return serverApi.pull(cursor, etag, limit);
+            }
+
+            @Override
+            public PushResult push(List<DessertEntity> desserts) throws IOException {
+                PushResult result = serverApi.push(desserts);
+                DessertEntity edited = db.dessertDao().getDessertById(local.getId());
+                edited.setPrice(120);
+                edited.setDirty(true);
+                edited.setUpdatedAt(edited.getUpdatedAt() + 1);
+                db.dessertDao().updateDessert(edited);
+                return result;
+            }
+        };
+        new DessertSyncer(db, editWhilePushing, prefs, "shopA").pushLocalChanges();
+
+        DessertEntity afterFirstPush = db.dessertDao().getDessertById(local.getId());
+        assertTrue(afterFirstPush.isDirty());           // Нова зміна ще не на сервері
+        assertEquals(1, afterFirstPush.getVersion());   // Але базова версія вже від сервера
+
+        syncer(db, "shopA").sync();
+
+        // Наступна відправка - не конфлікт зі своєю ж попередньою зміною, а нова версія
+        DessertEntity result = db.dessertDao().getDessertById(local.getId());
+        assertEquals(120, result.getPrice(), 0.001);
+        assertEquals(2, result.getVersion());
+        assertFalse(result.isDirty());
+        assertEquals(120, server.desserts("shopA").get(0).getPrice(), 0.001);
+    }
+
+    @Test
+    public void higherServerVersionWinsConflict() throws Exception {
+        AppDatabase db = newDatabase();
+        server.putRemote("shopA", FakeSyncServer.dessert("s1", "Еклер", "тістечко", 40, 1));
+        syncer(db, "shopA").sync();
+
+        // Інший пристрій встиг змінити ціну (версія 2), а ми змінили той самий десерт локально з версії 1
+        server.putRemote("shopA", FakeSyncServer.dessert("s1", "Еклер", "тістечко", 55, 2));
+        DessertEntity local = db.dessertDao().getDessertsBySyncIds(listOf("s1")).get(0);
+        local.setPrice(45);
+        local.markChanged();
+        db.dessertDao().updateDessert(local);
+
+        syncer(db, "shopA").sync();
+
+        DessertEntity result = db.dessertDao().getDessertsBySyncIds(listOf("s1")).get(0);
+        assertEquals(55, result.getPrice(), 0.001);
+        assertEquals(2, result.getVersion());
+        assertFalse(result.isDirty());
+    }
+
+    @Test
+    public void remoteRowWithSameNameMergesIntoLocalRow() throws Exception {
+        AppDatabase db = newDatabase();
+        // Локальний десерт, якого сервер ще не знає (без syncId), і не "брудний"
+        db.dessertDao().insertDessert(FakeSyncServer.dessert(null, "Торт  Наполеон", "Торт", 90, 0));
+        server.putRemote("shopA", FakeSyncServer.dessert("s1", "торт наполеон", "торт", 120, 4));
+
+        syncer(db, "shopA").sync();
+
+        assertEquals(1, db.dessertDao().getDessertCount());
+        DessertEntity merged = db.dessertDao().getDessertsBySyncIds(listOf("s1")).get(0);
+        assertEquals(120, merged.getPrice(), 0.001);
+        assertEquals(4, merged.getVersion());
+    }
+
+    @Test
+    public void remoteRenameOntoExistingNameReplacesThatRow() throws Exception {
+        AppDatabase db = newDatabase();
+        server.putRemote("shopA", FakeSyncServer.dessert("s1", "Еклер", "тістечко", 40, 1));
+        server.putRemote("shopA", FakeSyncServer.dessert("s2", "Корзинка", "тістечко", 35, 1));
+        syncer(db, "shopA").sync();
+
+        // На сервері "Корзинку" перейменували на "Еклер"
+        server.putRemote("shopA", FakeSyncServer.dessert("s2", "Еклер", "тістечко", 45, 2));
+        syncer(db, "shopA").sync();
+        assertEquals("s2", db.dessertDao().findByNormalizedNameAndType("еклер", "тістечко").getSyncId());
+        assertEquals(1, db.dessertDao().getDessertCount());
+        // Старий "Еклер" не зник мовчки: він став надгробком і чекає відправки
+        DessertEntity tombstone = db.dessertDao().getDessertsBySyncIds(listOf("s1")).get(0);
+        assertTrue(tombstone.isDeleted() && tombstone.isDirty());
+
+        // А тим часом старий "Еклер" на сервері змінили на "Картопля" - зміна перемагає видалення
+        server.putRemote("shopA", FakeSyncServer.dessert("s1", "Картопля", "тістечко", 30, 2));
+        syncer(db, "shopA").sync();
+        assertEquals(2, db.dessertDao().getDessertCount());
+        assertEquals(2, server.desserts("shopA").size());
+    }
+
+    @Test
+    public void remoteRenameWithoutOtherChangesDeletesClashingRowEverywhere() throws Exception {
+        AppDatabase db = newDatabase();
+        server.putRemote("shopA", FakeSyncServer.dessert("s1", "Еклер", "тістечко", 40, 1));
+        server.putRemote("shopA", FakeSyncServer.dessert("s2", "Корзинка", "тістечко", 35, 1));
+        syncer(db, "shopA").sync();
+
+        server.putRemote("shopA", FakeSyncServer.dessert("s2", "Еклер", "тістечко", 45, 2));
+        syncer(db, "shopA").sync();
+        syncer(db, "shopA").sync(); // Надгробок s1 іде на сервер
+
+        // Пристрій і сервер знову бачать одне й те саме
+        assertEquals(1, server.desserts("shopA").size());
+        assertEquals("s2", server.desserts("shopA").get(0).getSyncId());
+        assertTrue(db.dessertDao().getDessertsBySyncIds(listOf("s1")).isEmpty());
+    }
+
+    @Test
+    public void localDeleteOfSyncedDessertReachesServer() throws Exception {
+        AppDatabase db = newDatabase();
+        DessertEntity local = localDessert("Наполеон", "торт");
+        local.setId((int) db.dessertDao().insertDessert(local));
+        syncer(db, "shopA").sync();
+
+        db.dessertDao().deleteOrTombstone(local.getId());
+        assertEquals(0, db.dessertDao().getDessertCount()); // На екрані його вже немає
+
+        syncer(db, "shopA").sync();
+
+        assertTrue(server.desserts("shopA").isEmpty());
+        // Сервер прийняв видалення - надгробок більше не потрібен
+        assertNull(db.dessertDao().getDessertById(local.getId()));
+    }
+
+    @Test
+    public void deleteOnOneDeviceRemovesDessertOnAnother() throws Exception {
+        AppDatabase deviceA = newDatabase();
+        AppDatabase deviceB = newDatabase();
+        SharedPreferences prefsB = context.getSharedPreferences("sync-test-b", Context.MODE_PRIVATE);
+        prefsB.edit().clear().commit();
+        DessertSyncer syncerB = new DessertSyncer(deviceB, server.api("shopA"), prefsB, "shopA");
+        server.putRemote("shopA", FakeSyncServer.dessert("s1", "Еклер", "тістечко", 40, 1));
+        syncer(deviceA, "shopA").sync();
+        syncerB.sync();
+        assertEquals(1, deviceB.dessertDao().getDessertCount());
+
+        deviceA.dessertDao().deleteOrTombstone(deviceA.dessertDao().getDessertsBySyncIds(listOf("s1")).get(0).getId());
+        syncer(deviceA, "shopA").sync();
+        syncerB.sync();
+
+        assertEquals(0, deviceB.dessertDao().getDessertCount());
+        assertTrue(deviceB.dessertDao().getDessertsBySyncIds(listOf("s1")).isEmpty());
+    }
+
+    @Test
+    public void storesSyncOnlyTheirOwnCatalog() throws Exception {
+        AppDatabase shopA = newDatabase();
+        AppDatabase shopB = newDatabase();
+        shopA.dessertDao().insertDessert(localDessert("Наполеон", "торт"));
+        server.putRemote("shopB", FakeSyncServer.dessert("b1", "Макарон", "печиво", 30, 1));
+
+        syncer(shopA, "shopA").sync();
+        syncer(shopB, "shopB").sync();
+        syncer(shopA, "shopA").sync();
+
+        assertEquals(1, shopA.dessertDao().getDessertCount());
+        assertEquals(1, shopB.dessertDao().getDessertCount());
+        assertEquals(1, server.desserts("shopA").size());
+        assertEquals("Макарон", server.desserts("shopB").get(0).getName());
+    }
+
+    @Test
+    public void initialSyncOf50kRowsIsBatched() throws Exception {
+        int rows = 50_000;
+        for (int i = 0; i < rows; i++) {
+            server.putRemote("shopA", FakeSyncServer.dessert("s" + i, "Десерт " + i, "торт", 10 + i % 90, 1));
+        }
+        AppDatabase db = newDatabase();
+
+        long start = System.nanoTime();
+        syncer(db, "shopA").sync();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertEquals(rows, db.dessertDao().getDessertCount());
+        // Сторінки по BATCH_SIZE: 100 запитів, а не 50 тисяч
+        assertEquals(rows / DessertSyncer.BATCH_SIZE, server.pullRequests);
+        assertTrue("Синхронізація тривала " + seconds + " с", seconds < 60);
+    }
+
+    private AppDatabase newDatabase() {
+        AppDatabase db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries() // У тесті можна - ми самі керуємо потоками
+                .build();
+        databases.add(db);
+        return db;
+    }
+
+    private DessertSyncer syncer(AppDatabase db, String storeName) {
+        return new DessertSyncer(db, server.api(storeName), prefs, storeName);
+    }
+
+    private static DessertEntity localDessert(String name, String type) {
+        DessertEntity dessert = FakeSyncServer.dessert(null, name, type, 100, 0);
+        dessert.markChanged();
+        return dessert;
+    }
+
+    private static List<String> listOf(String... values) {
+        return Arrays.asList(values);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.confectioneryapp;
+
+import static com.example.confectioneryapp.TestUtils.dessert;
+import static com.example.confectioneryapp.TestUtils.onBackground;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.work.testing.WorkManagerTestInitHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Перевіряє, що список десертів справді звільняється, коли екран сховано
+ * (і зникає з пам'яті, а не лише з ViewModel), після повернення показує стільки ж рядків,
+ * а видимий екран при нестачі пам'яті не лишається порожнім.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DessertViewModelTrimTest {
+
+    private static final String STORE = "trimTest";
+    private static final int DESSERTS = 250; // Більше за початкове вікно
+
+    private Application application;
+    private final Observer<List<DessertEntity>> observer = list -> { };
+
+    @Before
+    public void setUp() throws Exception {
+        application = ApplicationProvider.getApplicationContext();
+        // MainActivity планує синхронізацію - у тесті WorkManager нічого не запускає
+        WorkManagerTestInitHelper.initializeTestWorkManager(application);
+        AppDatabase.closeAllStores();
+        application.deleteDatabase(STORE + ".db");
+        AppDatabase.switchStore(application, STORE);
+
+        DessertDao dao = AppDatabase.getInstance(application).dessertDao();
+        onBackground(() -> {
+            for (int i = 0; i < DESSERTS; i++) {
+                dao.insertIfUnique(dessert("Десерт " + i, "торт", 10 + i));
+            }
+            return null;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        AppDatabase.closeAllStores();
+        application.deleteDatabase(STORE + ".db");
+    }
+
+    @Test
+    public void hiddenScreenReleasesListAndKeepsWindowOnReturn() throws Exception {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            awaitShown(scenario, DessertViewModel.INITIAL_WINDOW);
+            scenario.onActivity(activity -> viewModel(activity).loadMore());
+            awaitShown(scenario, DESSERTS);
+            WeakReference<List<DessertEntity>> oldList = retainedList(scenario);
+
+            // Користувач пішов з екрана (onStop), система надсилає UI_HIDDEN
+            scenario.moveToState(Lifecycle.State.CREATED);
+            MemoryBudgetManager.getInstance().onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+            shadowOf(Looper.getMainLooper()).idle();
+
+            assertEquals(0, shownCount(scenario));
+            scenario.onActivity(activity -> assertEquals(0, viewModel(activity).getRetainedDessertCount()));
+            // Старий список ніхто не тримає - ні ViewModel, ні LiveData, ні адаптер
+            awaitCollected(oldList);
+
+            // Повернулися: onStart() читає список знову, і вікно те саме - не 200 і не 50 рядків
+            scenario.moveToState(Lifecycle.State.RESUMED);
+            awaitShown(scenario, DESSERTS);
+        }
+    }
+
+    @Test
+    public void lowMemoryWhileVisibleKeepsVisibleRows() throws Exception {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            awaitShown(scenario, DessertViewModel.INITIAL_WINDOW);
+            int[] lastVisible = new int[1];
+            scenario.onActivity(activity -> lastVisible[0] =
+                    ((LinearLayoutManager) list(activity).getLayoutManager()).findLastVisibleItemPosition());
+
+            // onLowMemory() - найсильніший рівень, але користувач дивиться на список
+            MemoryBudgetManager.getInstance().onLowMemory();
+            shadowOf(Looper.getMainLooper()).idle();
+
+            // Список не спорожнів - лише стиснувся до видимих рядків із запасом
+            int expected = Math.min(DessertViewModel.INITIAL_WINDOW, Math.max(DessertViewModel.MIN_WINDOW,
+                    lastVisible[0] + 1 + MainActivity.LOAD_MORE_THRESHOLD));
+            awaitShown(scenario, expected);
+        }
+    }
+
+    @Test
+    public void runningCriticalKeepsVisibleRows() throws Exception {
+        DessertViewModel viewModel = new DessertViewModel(application);
+        LiveData<List<DessertEntity>> shown = viewModel.getAllDesserts();
+        shown.observeForever(observer);
+        awaitRetained(viewModel, DessertViewModel.INITIAL_WINDOW);
+
+        // Користувач бачить перші 120 рядків - їх не можна забирати
+        viewModel.shrinkWindow(120);
+        awaitRetained(viewModel, 120);
+
+        // Менше за мінімальне вікно не стискаємось
+        viewModel.shrinkWindow(5);
+        awaitRetained(viewModel, DessertViewModel.MIN_WINDOW);
+        shown.removeObserver(observer);
+        viewModel.onCleared();
+    }
+
+    private static DessertViewModel viewModel(MainActivity activity) {
+        return new ViewModelProvider(activity).get(DessertViewModel.class); // Той самий екземпляр, що й в Activity
+    }
+
+    private static RecyclerView list(MainActivity activity) {
+        return activity.findViewById(R.id.recyclerView);
+    }
+
+    // Скільки рядків зараз в адаптері, тобто на екрані
+    private static int shownCount(ActivityScenario<MainActivity> scenario) {
+        int[] count = new int[1];
+        scenario.onActivity(activity -> count[0] = list(activity).getAdapter().getItemCount());
+        return count[0];
+    }
+
+    // Слабке посилання на список, який зараз тримає ViewModel, - сильного в тесті лишатися не повинно
+    private static WeakReference<List<DessertEntity>> retainedList(ActivityScenario<MainActivity> scenario) {
+        AtomicReference<WeakReference<List<DessertEntity>>> result = new AtomicReference<>();
+        scenario.onActivity(activity ->
+                result.set(new WeakReference<>(viewModel(activity).getAllDesserts().getValue())));
+        return result.get();
+    }
+
+    private static void awaitCollected(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull("Старий список досі в пам'яті", reference.get());
+    }
+
+    // Room читає дані у своєму потоці, а результат приходить через головний - крутимо його, поки не дочекаємось
+    private static void awaitShown(ActivityScenario<MainActivity> scenario, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (shownCount(scenario) != expected) {
+            if (System.currentTimeMillis() > deadline) {
+                assertEquals(expected, shownCount(scenario));
+            }
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+    }
+
+    private static void awaitRetained(DessertViewModel viewModel, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (viewModel.getRetainedDessertCount() != expected) {
+            if (System.currentTimeMillis() > deadline) {
+                assertEquals(expected, viewModel.getRetainedDessertCount());
+            }
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+    }
+}
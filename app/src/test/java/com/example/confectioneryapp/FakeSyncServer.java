@@ -0,0 +1,143 @@
+package com.example.confectioneryapp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервер синхронізації в пам'яті - заміна справжнього сервера для тестів DessertSyncer.
+ * Як і справжній, тримає окремий каталог для кожного магазину, видає зміни сторінками
+ * за курсором, відповідає "нічого не змінилось" на актуальний ETag
+ * і повертає конфлікт, якщо клієнт надіслав зміну до застарілої версії.
+ * Видалені десерти тримає "надгробками", щоб видалення дійшло до інших пристроїв.
+ */
+class FakeSyncServer {
+
+    private static class Row {
+        DessertEntity dessert;
+        long seq; // Порядковий номер останньої зміни - з нього будується курсор
+    }
+
+    private static class Catalog {
+        final Map<String, Row> rows = new HashMap<>();
+        long lastSeq;
+    }
+
+    private final Map<String, Catalog> catalogs = new HashMap<>();
+
+    int pullRequests;
+    int pushRequests;
+
+    /**
+     * Клієнт, прив'язаний до каталогу одного магазину (як HttpDessertSyncApi зі своєю адресою).
+     */
+    DessertSyncApi api(String storeName) {
+        Catalog catalog = catalog(storeName);
+        return new DessertSyncApi() {
+            @Override
+            public Page pull(String cursor, String etag, int limit) {
+                pullRequests++;
+                // ETag - версія всього каталогу, однакова для будь-якого курсора (див. DessertSyncApi.pull())
+                String currentEtag = "\"" + catalog.lastSeq + "\"";
+                if (currentEtag.equals(etag)) {
+                    return null;
+                }
+                long after = cursor == null ? 0 : Long.parseLong(cursor);
+                List<Row> changed = new ArrayList<>();
+                for (Row row : catalog.rows.values()) {
+                    if (row.seq > after) {
+                        changed.add(row);
+                    }
+                }
+                changed.sort((a, b) -> Long.compare(a.seq, b.seq));
+                boolean hasMore = changed.size() > limit;
+                List<DessertEntity> items = new ArrayList<>();
+                long next = after;
+                for (Row row : changed.subList(0, Math.min(limit, changed.size()))) {
+                    items.add(copy(row.dessert));
+                    next = row.seq;
+                }
+                return new Page(items, String.valueOf(next), currentEtag, hasMore);
+            }
+
+            @Override
+            public PushResult push(List<DessertEntity> desserts) {
+                pushRequests++;
+                List<DessertEntity> accepted = new ArrayList<>();
+                List<DessertEntity> conflicts = new ArrayList<>();
+                for (DessertEntity dessert : desserts) {
+                    Row row = catalog.rows.get(dessert.getSyncId());
+                    if (row != null && row.dessert.getVersion() > dessert.getVersion()) {
+                        conflicts.add(copy(row.dessert));
+                        continue;
+                    }
+                    DessertEntity stored = copy(dessert);
+                    stored.setVersion(row == null ? 1 : row.dessert.getVersion() + 1);
+                    putRow(catalog, stored);
+                    accepted.add(copy(stored));
+                }
+                return new PushResult(accepted, conflicts);
+            }
+        };
+    }
+
+    /**
+     * Кладе десерт у каталог магазину "з боку сервера" (ніби його змінив інший пристрій).
+     */
+    void putRemote(String storeName, DessertEntity dessert) {
+        putRow(catalog(storeName), copy(dessert));
+    }
+
+    /**
+     * Десерти, які зараз є в каталозі магазину (без надгробків).
+     */
+    List<DessertEntity> desserts(String storeName) {
+        List<DessertEntity> result = new ArrayList<>();
+        for (Row row : catalog(storeName).rows.values()) {
+            if (!row.dessert.isDeleted()) {
+                result.add(copy(row.dessert));
+            }
+        }
+        return result;
+    }
+
+    static DessertEntity dessert(String syncId, String name, String type, double price, long version) {
+        DessertEntity dessert = new DessertEntity();
+        dessert.setSyncId(syncId);
+        dessert.setName(name);
+        dessert.setType(type);
+        dessert.setPrice(price);
+        dessert.setWeight(100);
+        dessert.setVersion(version);
+        return dessert;
+    }
+
+    private Catalog catalog(String storeName) {
+        Catalog catalog = catalogs.get(storeName);
+        if (catalog == null) {
+            catalog = new Catalog();
+            catalogs.put(storeName, catalog);
+        }
+        return catalog;
+    }
+
+    private static void putRow(Catalog catalog, DessertEntity dessert) {
+        Row row = new Row();
+        row.dessert = dessert;
+        row.seq = ++catalog.lastSeq;
+        catalog.rows.put(dessert.getSyncId(), row);
+    }
+
+    // Сервер і клієнт не повинні ділити один об'єкт - як і при справжній передачі по мережі
+    private static DessertEntity copy(DessertEntity source) {
+        DessertEntity copy = dessert(source.getSyncId(), source.getName(), source.getType(),
+                source.getPrice(), source.getVersion());
+        copy.setWeight(source.getWeight());
+        copy.setDescription(source.getDescription());
+        copy.setStatus(source.getStatus());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        copy.setDeleted(source.isDeleted());
+        return copy;
+    }
+}
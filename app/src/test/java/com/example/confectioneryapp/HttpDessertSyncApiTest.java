@@ -0,0 +1,133 @@
+package com.example.confectioneryapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Перевіряє HTTP-клієнт синхронізації на локальному MockWebServer:
+ * адреси з назвою магазину, gzip в обидва боки та ETag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HttpDessertSyncApiTest {
+
+    private MockWebServer server;
+    private HttpDessertSyncApi api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        api = new HttpDessertSyncApi(server.url("/").toString(), "shopA");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void pullReadsGzippedPageFromStoreEndpoint() throws Exception {
+        server.enqueue(gzipJson("{\"items\":[{\"syncId\":\"s1\",\"name\":\"Еклер\",\"type\":\"тістечко\","
+                + "\"price\":40.5,\"weight\":80,\"description\":null,\"status\":\"В наявності\",\"version\":3}],"
+                + "\"cursor\":\"17\",\"hasMore\":true}").addHeader("ETag", "\"abc\""));
+
+        DessertSyncApi.Page page = api.pull("5", null, 500);
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("/stores/shopA/desserts/changes", request.getRequestUrl().encodedPath());
+        assertEquals("5", request.getRequestUrl().queryParameter("cursor"));
+        assertEquals("500", request.getRequestUrl().queryParameter("limit"));
+        assertEquals(1, page.items.size());
+        assertEquals("Еклер", page.items.get(0).getName());
+        assertEquals(3, page.items.get(0).getVersion());
+        assertEquals("17", page.cursor);
+        assertEquals("\"abc\"", page.etag);
+        assertTrue(page.hasMore);
+    }
+
+    @Test
+    public void pullSendsEtagAndReturnsNullWhenNotModified() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        assertNull(api.pull("17", "\"abc\"", 500));
+        assertEquals("\"abc\"", server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void pushSendsGzippedBatchToStoreEndpoint() throws Exception {
+        server.enqueue(gzipJson("{\"accepted\":[{\"syncId\":\"s1\",\"name\":\"Наполеон\",\"type\":\"торт\","
+                + "\"price\":100,\"weight\":500,\"status\":\"В наявності\",\"version\":1}],\"conflicts\":[]}"));
+        DessertEntity dessert = FakeSyncServer.dessert("s1", "Наполеон", "торт", 100, 0);
+        dessert.setWeight(500);
+
+        DessertSyncApi.PushResult result = api.push(Collections.singletonList(dessert));
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("/stores/shopA/desserts/batch", request.getRequestUrl().encodedPath());
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        String body = gunzip(request.getBody().readByteArray());
+        assertTrue(body, body.contains("\"syncId\":\"s1\""));
+        assertEquals(1, result.accepted.size());
+        assertEquals(1, result.accepted.get(0).getVersion());
+    }
+
+    @Test
+    public void otherStoreUsesItsOwnEndpoint() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        new HttpDessertSyncApi(server.url("/").toString(), "shopB").pull(null, null, 10);
+
+        assertEquals("/stores/shopB/desserts/changes", server.takeRequest().getRequestUrl().encodedPath());
+    }
+
+    @Test(expected = IOException.class)
+    public void serverErrorBecomesIOException() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        api.pull(null, null, 10);
+    }
+
+    private static MockResponse gzipJson(String json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return new MockResponse()
+                .addHeader("Content-Type", "application/json")
+                .addHeader("Content-Encoding", "gzip")
+                .setBody(new Buffer().write(bytes.toByteArray()));
+    }
+
+    private static String gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
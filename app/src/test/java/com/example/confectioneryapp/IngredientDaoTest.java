@@ -0,0 +1,132 @@
+package com.example.confectioneryapp;
+
+import static com.example.confectioneryapp.TestUtils.dessert;
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * Перевіряє рецепти: завантаження десертів з інгредієнтами, пошук за алергеном і підрахунок собівартості.
+ */
+@RunWith(AndroidJUnit4.class)
+public class IngredientDaoTest {
+
+    private AppDatabase db;
+    private DessertDao dessertDao;
+    private IngredientDao dao;
+
+    private int flour;
+    private int butter;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        dessertDao = db.dessertDao();
+        dao = db.ingredientDao();
+        flour = (int) dao.insertIngredient(ingredient("Борошно", 0.02, "глютен"));
+        butter = (int) dao.insertIngredient(ingredient("Масло", 0.3, "лактоза"));
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void recipeLinesPairQuantityWithIngredient() {
+        int napoleon = insertDessert("Наполеон", 450);
+        dao.insertRecipeLine(line(napoleon, flour, 500));
+        dao.insertRecipeLine(line(napoleon, butter, 200));
+
+        DessertWithIngredients loaded = dao.getDessertWithIngredients(napoleon);
+
+        assertEquals(2, loaded.recipe.size());
+        for (RecipeLine line : loaded.recipe) {
+            assertEquals(line.line.getIngredientId(), line.ingredient.getId());
+        }
+        assertEquals(500 * 0.02 + 200 * 0.3, loaded.getIngredientCost(), 0.001);
+    }
+
+    @Test
+    public void pagesWalkAllDessertsNewestFirst() {
+        for (int i = 1; i <= 5; i++) {
+            insertDessert("Десерт " + i, 10 * i);
+        }
+
+        List<DessertWithIngredients> first = dao.getDessertsWithIngredients(Integer.MAX_VALUE, 2);
+        List<DessertWithIngredients> second = dao.getDessertsWithIngredients(first.get(1).dessert.getId(), 2);
+        List<DessertWithIngredients> last = dao.getDessertsWithIngredients(second.get(1).dessert.getId(), 2);
+
+        assertEquals("Десерт 5", first.get(0).dessert.getName());
+        assertEquals("Десерт 3", second.get(0).dessert.getName());
+        assertEquals(1, last.size());
+        assertEquals(0, last.get(0).recipe.size()); // Десерт без рецепту - порожній список, не null
+    }
+
+    @Test
+    public void allergenQueryFindsOnlyDessertsWithThatAllergen() {
+        int napoleon = insertDessert("Наполеон", 450);
+        int meringue = insertDessert("Безе", 40);
+        dao.insertRecipeLine(line(napoleon, flour, 500));
+        dao.insertRecipeLine(line(napoleon, butter, 200));
+        dao.insertRecipeLine(line(meringue, butter, 10));
+
+        List<DessertWithIngredients> gluten = dao.getDessertsWithAllergen("глютен");
+        List<DessertWithIngredients> lactose = dao.getDessertsWithAllergen("лактоза");
+
+        assertEquals(1, gluten.size());
+        assertEquals(napoleon, gluten.get(0).dessert.getId());
+        assertEquals(2, gluten.get(0).recipe.size()); // Повний рецепт, а не лише рядок з алергеном
+        assertEquals(2, lactose.size());
+    }
+
+    @Test
+    public void costRollupSumsRecipeAndKeepsDessertsWithoutRecipe() throws Exception {
+        int napoleon = insertDessert("Наполеон", 450);
+        int fruit = insertDessert("Фруктовий салат", 90);
+        dao.insertRecipeLine(line(napoleon, flour, 500));
+        dao.insertRecipeLine(line(napoleon, butter, 200));
+
+        List<DessertCost> costs = TestUtils.awaitValue(dao.getDessertCosts());
+
+        assertEquals(2, costs.size());
+        assertEquals(fruit, costs.get(0).dessertId);          // Найновіший першим
+        assertEquals(0, costs.get(0).ingredientCost, 0.001);  // COALESCE замість NULL
+        assertEquals(napoleon, costs.get(1).dessertId);
+        assertEquals(70, costs.get(1).ingredientCost, 0.001); // Жодного дублювання рядків через JOIN
+    }
+
+    private int insertDessert(String name, double price) {
+        return (int) dessertDao.insertDessert(dessert(name, "торт", price));
+    }
+
+    private static IngredientEntity ingredient(String name, double pricePerUnit, String allergen) {
+        IngredientEntity ingredient = new IngredientEntity();
+        ingredient.setName(name);
+        ingredient.setPricePerUnit(pricePerUnit);
+        ingredient.setAllergen(allergen);
+        return ingredient;
+    }
+
+    private static DessertIngredientCrossRef line(int dessertId, int ingredientId, double quantity) {
+        DessertIngredientCrossRef line = new DessertIngredientCrossRef();
+        line.setDessertId(dessertId);
+        line.setIngredientId(ingredientId);
+        line.setQuantity(quantity);
+        return line;
+    }
+}
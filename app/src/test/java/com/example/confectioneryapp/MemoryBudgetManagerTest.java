@@ -0,0 +1,86 @@
+package com.example.confectioneryapp;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Перевіряє розсилку сигналів про пам'ять і те, які бази менеджер закриває.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MemoryBudgetManagerTest {
+
+    private final MemoryBudgetManager manager = MemoryBudgetManager.getInstance();
+    private final List<Integer> received = new ArrayList<>();
+    private final MemoryBudgetManager.Trimmable trimmable = received::add;
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        AppDatabase.closeAllStores();
+    }
+
+    @After
+    public void tearDown() {
+        manager.unregister(trimmable);
+        AppDatabase.closeAllStores();
+    }
+
+    @Test
+    public void levelsReachOnlyRegisteredTrimmables() {
+        manager.register(trimmable);
+        manager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        manager.onLowMemory();
+        manager.unregister(trimmable);
+        manager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        List<Integer> expected = new ArrayList<>();
+        expected.add(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        expected.add(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(expected, received);
+        assertEquals(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN, manager.getLastTrimLevel());
+    }
+
+    @Test
+    public void runningLevelsKeepOtherStoresOpen() {
+        AppDatabase.switchStore(context, "shopA");
+        AppDatabase.switchStore(context, "shopB");
+
+        manager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+
+        assertEquals(2, AppDatabase.getOpenStoreCount());
+    }
+
+    @Test
+    public void hiddenClosesIdleStoresButNotCurrentOrBusy() {
+        AppDatabase.switchStore(context, "shopA");
+        AppDatabase.switchStore(context, "shopB");
+        AppDatabase.acquire(context, "shopA");       // Напр., запис у черзі ViewModel
+        AppDatabase.acquire(context, "sync-only");   // Напр., SyncWorker
+        AppDatabase.switchStore(context, "shopC");
+        assertEquals(4, AppDatabase.getOpenStoreCount());
+
+        manager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        // shopB закрито; лишилися поточний shopC і закріплені shopA та sync-only
+        assertEquals(3, AppDatabase.getOpenStoreCount());
+
+        AppDatabase.release("shopA");
+        AppDatabase.release("sync-only");
+        manager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertEquals(1, AppDatabase.getOpenStoreCount());
+    }
+}
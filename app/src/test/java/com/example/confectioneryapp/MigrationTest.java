@@ -0,0 +1,239 @@
+package com.example.confectioneryapp;
+
+import static com.example.confectioneryapp.TestUtils.onBackground;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Перевіряє, що оновлення старої бази (версії 2) до поточної зберігає десерти,
+ * а там, де Room все ж перестворює базу, забувається курсор синхронізації.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String STORE = "legacy";
+    private static final String FILE = STORE + ".db";
+
+    private Context context;
+    private SharedPreferences prefs;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        prefs = SyncWorker.syncPrefs(context);
+        AppDatabase.closeAllStores();
+        context.deleteDatabase(FILE);
+    }
+
+    @After
+    public void tearDown() {
+        AppDatabase.closeAllStores();
+        context.deleteDatabase(FILE);
+        prefs.edit().clear().commit();
+    }
+
+    @Test
+    public void version2DessertsSurviveAndBecomeDirty() throws Exception {
+        createVersion2(
+                "INSERT INTO desserts (id, name, type, price, weight, status) VALUES (1, 'Торт Наполеон', 'Торт', 450, 1200, 'В наявності')",
+                "INSERT INTO desserts (id, name, type, price, weight, status) VALUES (2, 'Еклер', 'Тістечко', 60, 80, 'В наявності')");
+        prefs.edit().putString(STORE + "_cursor", "c-42").commit();
+
+        AppDatabase db = AppDatabase.getInstance(context, STORE);
+        List<DessertEntity> dirty = onBackground(() -> db.dessertDao().getDirtyDesserts(0, 100));
+
+        assertEquals(2, dirty.size());
+        DessertEntity napoleon = onBackground(() -> db.dessertDao().getDessertById(1));
+        assertEquals("торт наполеон", napoleon.getNormalizedName());
+        assertEquals("торт", napoleon.getNormalizedType());
+        assertNull(napoleon.getSyncId());
+        // Дані не втрачено, тож і курсор лишається правдивим
+        assertEquals("c-42", prefs.getString(STORE + "_cursor", null));
+    }
+
+    @Test
+    public void everyVersionBumpHasMigration() {
+        // Версія 2 - остання, що вийшла до ланцюжка міграцій; далі - жодного кроку без Migration
+        int version = 2;
+        for (Migration migration : AppDatabase.MIGRATIONS) {
+            assertEquals(version, migration.startVersion);
+            version = migration.endVersion;
+        }
+        assertEquals(AppDatabase.VERSION, version);
+    }
+
+    @Test
+    public void version2DessertsGetWorkingRecipeTables() throws Exception {
+        createVersion2(
+                "INSERT INTO desserts (id, name, type, price, weight, status) VALUES (1, 'Торт Наполеон', 'Торт', 450, 1200, 'В наявності')");
+
+        AppDatabase db = AppDatabase.getInstance(context, STORE);
+        IngredientDao dao = db.ingredientDao();
+        DessertWithIngredients napoleon = onBackground(() -> {
+            IngredientEntity flour = new IngredientEntity();
+            flour.setName("Борошно");
+            flour.setPricePerUnit(0.02);
+            DessertIngredientCrossRef line = new DessertIngredientCrossRef();
+            line.setDessertId(1);
+            line.setIngredientId((int) dao.insertIngredient(flour));
+            line.setQuantity(500);
+            dao.insertRecipeLine(line);
+            return dao.getDessertWithIngredients(1);
+        });
+
+        assertEquals(1, napoleon.recipe.size());
+        assertEquals(10, napoleon.getIngredientCost(), 0.001);
+        // Зовнішні ключі з міграції працюють так само, як у щойно створеній базі
+        onBackground(() -> {
+            db.dessertDao().deleteDessertById(1);
+            return null;
+        });
+        assertNull(onBackground(() -> dao.getDessertWithIngredients(1)));
+        assertEquals(0, (int) onBackground(() -> {
+            try (Cursor cursor = db.getOpenHelper().getReadableDatabase()
+                    .query("SELECT COUNT(*) FROM dessert_ingredients")) {
+                cursor.moveToFirst();
+                return cursor.getInt(0); // Рядок рецепту зник разом з десертом (CASCADE)
+            }
+        }));
+    }
+
+    @Test
+    public void duplicatesAreMergedWithRecipesBeforeUniqueIndex() throws Exception {
+        createVersion2(
+                "INSERT INTO desserts (id, name, type, price, weight, status) VALUES (1, 'Торт Наполеон', 'Торт', 450, 1200, 'В наявності')",
+                "INSERT INTO desserts (id, name, type, price, weight, status) VALUES (2, '  торт   НАПОЛЕОН ', 'торт', 470, 1200, 'В наявності')",
+                "INSERT INTO desserts (id, name, type, price, weight, status) VALUES (3, 'Еклер', 'Тістечко', 60, 80, 'В наявності')");
+        // У версії 3 в обох дублікатів уже є рецепти, і борошно - в обох
+        upgradeFile(3,
+                "INSERT INTO ingredients (id, name, unit, pricePerUnit) VALUES (1, 'Борошно', 'г', 0.02)",
+                "INSERT INTO ingredients (id, name, unit, pricePerUnit) VALUES (2, 'Масло', 'г', 0.3)",
+                "INSERT INTO dessert_ingredients (dessertId, ingredientId, quantity) VALUES (1, 1, 500)",
+                "INSERT INTO dessert_ingredients (dessertId, ingredientId, quantity) VALUES (1, 2, 200)",
+                "INSERT INTO dessert_ingredients (dessertId, ingredientId, quantity) VALUES (2, 1, 450)");
+
+        AppDatabase db = AppDatabase.getInstance(context, STORE);
+
+        assertEquals(2, (int) onBackground(() -> db.dessertDao().getDessertCount()));
+        // Лишається новіший рядок
+        DessertEntity kept = onBackground(() ->
+                db.dessertDao().findByNormalizedNameAndType("торт наполеон", "торт"));
+        assertEquals(2, kept.getId());
+        assertNotNull(onBackground(() -> db.dessertDao().getDessertById(3)));
+
+        // Масло переїхало з дубліката, а борошно лишилося власне (450), а не задвоїлось
+        DessertWithIngredients napoleon = onBackground(() -> db.ingredientDao().getDessertWithIngredients(2));
+        assertEquals(2, napoleon.recipe.size());
+        assertEquals(450 * 0.02 + 200 * 0.3, napoleon.getIngredientCost(), 0.001);
+    }
+
+    @Test
+    public void syncedDuplicateBecomesTombstoneInsteadOfVanishing() throws Exception {
+        createVersion2(
+                "INSERT INTO desserts (id, name, type, price, weight, status) VALUES (1, 'Торт Наполеон', 'Торт', 450, 1200, 'В наявності')",
+                "INSERT INTO desserts (id, name, type, price, weight, status) VALUES (2, 'торт наполеон', 'торт', 470, 1200, 'В наявності')");
+        // Версія 4 вже синхронізувала обидва рядки - сервер тримає два різні десерти
+        upgradeFile(4,
+                "UPDATE desserts SET syncId = 's1', version = 3, dirty = 0 WHERE id = 1",
+                "UPDATE desserts SET syncId = 's2', version = 1, dirty = 0 WHERE id = 2");
+
+        AppDatabase db = AppDatabase.getInstance(context, STORE);
+
+        assertEquals(1, (int) onBackground(() -> db.dessertDao().getDessertCount()));
+        DessertEntity kept = onBackground(() ->
+                db.dessertDao().findByNormalizedNameAndType("торт наполеон", "торт"));
+        assertEquals(2, kept.getId());
+        // Другий не зник мовчки: надгробок з версією, яку бачив сервер, піде на сервер
+        DessertEntity tombstone = onBackground(() -> db.dessertDao().getDessertById(1));
+        assertTrue(tombstone.isDeleted() && tombstone.isDirty());
+        assertEquals(3, tombstone.getVersion());
+        assertEquals(1, (int) onBackground(() -> db.dessertDao().getDirtyDesserts(0, 100).size()));
+    }
+
+    @Test
+    public void destructiveRebuildForgetsSyncCursor() throws Exception {
+        // Для версії 1 міграції немає - Room перестворить базу
+        SQLiteDatabase old = openFile();
+        old.execSQL("CREATE TABLE desserts (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, name TEXT NOT NULL)");
+        old.setVersion(1);
+        old.close();
+        prefs.edit()
+                .putString(STORE + "_cursor", "c-42")
+                .putString(STORE + "_etag", "\"v7\"")
+                .putString("other_cursor", "c-1")
+                .commit();
+
+        AppDatabase db = AppDatabase.getInstance(context, STORE);
+        onBackground(() -> db.dessertDao().getDessertCount()); // Справді відкриваємо файл
+
+        assertTrue(!prefs.contains(STORE + "_cursor") && !prefs.contains(STORE + "_etag"));
+        assertEquals("c-1", prefs.getString("other_cursor", null)); // Інші магазини не чіпаємо
+    }
+
+    // Файл у тому вигляді, який створював додаток з базою версії 2
+    private void createVersion2(String... inserts) {
+        SQLiteDatabase old = openFile();
+        old.execSQL("CREATE TABLE desserts (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "name TEXT NOT NULL, type TEXT NOT NULL, price REAL NOT NULL, weight INTEGER NOT NULL, "
+                + "description TEXT, status TEXT NOT NULL)");
+        for (String insert : inserts) {
+            old.execSQL(insert);
+        }
+        old.setVersion(2);
+        old.close();
+    }
+
+    // Доводить файл версії 2 до вказаної версії тими ж міграціями, що й Room, і дописує дані цієї версії
+    private void upgradeFile(int version, String... statements) {
+        SupportSQLiteOpenHelper.Callback callback = new SupportSQLiteOpenHelper.Callback(version) {
+            @Override
+            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            }
+
+            @Override
+            public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                for (Migration migration : AppDatabase.MIGRATIONS) {
+                    if (migration.startVersion >= oldVersion && migration.endVersion <= newVersion) {
+                        migration.migrate(db);
+                    }
+                }
+            }
+        };
+        SupportSQLiteOpenHelper helper = new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(context).name(FILE).callback(callback).build());
+        SupportSQLiteDatabase db = helper.getWritableDatabase();
+        for (String statement : statements) {
+            db.execSQL(statement);
+        }
+        helper.close();
+    }
+
+    private SQLiteDatabase openFile() {
+        File file = context.getDatabasePath(FILE);
+        file.getParentFile().mkdirs();
+        return SQLiteDatabase.openOrCreateDatabase(file, null);
+    }
+}
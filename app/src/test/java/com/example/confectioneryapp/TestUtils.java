@@ -0,0 +1,71 @@
+package com.example.confectioneryapp;
+
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Спільні заготовки для тестів з базою: десерти-приклади, запуск запитів у фоні
+ * та очікування "живих" даних.
+ */
+final class TestUtils {
+
+    // Room не дозволяє запити з головного потоку, а в Robolectric тест працює саме в ньому
+    private static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "test-db");
+        thread.setDaemon(true); // Не тримаємо JVM після тестів
+        return thread;
+    });
+
+    private TestUtils() {
+    }
+
+    /**
+     * Новий (ще не збережений) десерт з мінімумом обов'язкових полів.
+     */
+    static DessertEntity dessert(String name, String type, double price) {
+        DessertEntity dessert = new DessertEntity();
+        dessert.setName(name);
+        dessert.setType(type);
+        dessert.setPrice(price);
+        dessert.setWeight(100);
+        return dessert;
+    }
+
+    /**
+     * Виконує роботу з базою у фоновому потоці і чекає результату.
+     */
+    static <T> T onBackground(Callable<T> task) throws Exception {
+        return BACKGROUND.submit(task).get();
+    }
+
+    /**
+     * Підписується на LiveData і чекає першого значення.
+     * Room рахує його у своєму потоці, а віддає через головний - тому крутимо головний Looper.
+     */
+    static <T> T awaitValue(LiveData<T> liveData) throws InterruptedException {
+        Observer<T> observer = value -> { };
+        liveData.observeForever(observer);
+        try {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (liveData.getValue() == null) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("LiveData так і не отримала значення");
+                }
+                Thread.sleep(10);
+                shadowOf(Looper.getMainLooper()).idle();
+            }
+            return liveData.getValue();
+        } finally {
+            liveData.removeObserver(observer);
+        }
+    }
+}